@@ -1,14 +1,51 @@
 import java.util.ArrayList;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import tester.Tester;
-import java.util.HashMap;
 import java.util.Comparator;
 import javalib.impworld.*;
 import java.awt.Color;
 import javalib.worldimages.*;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.io.Writer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.Callable;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Label;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 //useful methods
 class Utils {
@@ -82,14 +119,178 @@ class Utils {
     }
   }
 
-  // determines if a given edge creates a cycle with any of the other
-  Vertex find(HashMap<Vertex, Vertex> map, Vertex v) {
-    return map.get(v);
+  // produces the indices of the given weights, ordered from the smallest weight
+  // to the largest; indices of equal weights stay in ascending order
+  int[] sortByWeight(int[] weights) {
+    int min = 0;
+    int max = 0;
+    if (weights.length > 0) {
+      min = weights[0];
+      max = weights[0];
+    }
+    for (int w : weights) {
+      min = Math.min(min, w);
+      max = Math.max(max, w);
+    }
+
+    // edge weights come from a small range, so one counting pass is enough;
+    // any other range falls back to a byte-at-a-time radix sort
+    if ((long) max - min <= Math.max(weights.length, 1 << 16)) {
+      return this.countingSort(weights, min, max);
+    }
+    else {
+      return this.radixSort(weights);
+    }
+  }
+
+  // produces the indices of the given weights, which all lie in [min, max],
+  // ordered by weight
+  int[] countingSort(int[] weights, int min, int max) {
+    return this.countingSort(weights, weights.length, min, max, new int[max - min + 2],
+        new int[weights.length]);
+  }
+
+  // produces the indices of the first count of the given weights, which all lie
+  // in [min, max], ordered by weight, in the given order buffer; starts must
+  // have room for max - min + 2 buckets
+  // EFFECT: overwrites the given starts and order buffers
+  int[] countingSort(int[] weights, int count, int min, int max, int[] starts, int[] order) {
+    Arrays.fill(starts, 0, max - min + 2, 0);
+    for (int i = 0; i < count; i++) {
+      starts[weights[i] - min + 1]++;
+    }
+    for (int i = 1; i < max - min + 2; i++) {
+      starts[i] = starts[i] + starts[i - 1];
+    }
+    for (int i = 0; i < count; i++) {
+      int bucket = weights[i] - min;
+      order[starts[bucket]] = i;
+      starts[bucket]++;
+    }
+    return order;
+  }
+
+  // produces the indices of the given weights ordered by weight, sorting on
+  // one byte of the weight at a time starting from the lowest
+  int[] radixSort(int[] weights) {
+    int[] order = new int[weights.length];
+    int[] temp = new int[weights.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    for (int shift = 0; shift < 32; shift = shift + 8) {
+      int[] starts = new int[257];
+      for (int w : weights) {
+        starts[this.digit(w, shift) + 1]++;
+      }
+      for (int i = 1; i < starts.length; i++) {
+        starts[i] = starts[i] + starts[i - 1];
+      }
+      for (int id : order) {
+        int d = this.digit(weights[id], shift);
+        temp[starts[d]] = id;
+        starts[d]++;
+      }
+      int[] swap = order;
+      order = temp;
+      temp = swap;
+    }
+    return order;
+  }
+
+  // extracts the byte of the given weight at the given shift, flipping the sign
+  // bit so that negative weights come before positive ones
+  int digit(int weight, int shift) {
+    return ((weight ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+  }
+}
+
+//represents a disjoint-set forest over the integers [0, size), used to tell
+//whether two cells are already connected
+class UnionFind {
+  int[] parent;
+  byte[] rank;
+  int sets;
+
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new byte[size];
+    this.reset();
+  }
+
+  // EFFECT: puts every element back into a set of its own
+  void reset() {
+    for (int i = 0; i < this.parent.length; i++) {
+      this.parent[i] = i;
+      this.rank[i] = 0;
+    }
+    this.sets = this.parent.length;
+  }
+
+  // finds the representative of the set containing the given element
+  // EFFECT: points every other node on the way up at its grandparent,
+  // halving the length of that path
+  int find(int i) {
+    while (this.parent[i] != i) {
+      this.parent[i] = this.parent[this.parent[i]];
+      i = this.parent[i];
+    }
+    return i;
   }
 
-  // replaces the value for a given vertex key in the given hash map
-  void union(HashMap<Vertex, Vertex> map, Vertex v1, Vertex v2) {
-    map.put(v1, v2);
+  // joins the sets containing the two given elements, and determines if they
+  // were separate before
+  // EFFECT: hangs the root of lower rank under the other root
+  boolean union(int a, int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+    else {
+      if (this.rank[rootA] < this.rank[rootB]) {
+        this.parent[rootA] = rootB;
+      }
+      else if (this.rank[rootA] > this.rank[rootB]) {
+        this.parent[rootB] = rootA;
+      }
+      else {
+        this.parent[rootB] = rootA;
+        this.rank[rootA]++;
+      }
+      this.sets--;
+      return true;
+    }
+  }
+}
+
+//a seed that independent streams of random numbers are split off from, one for
+//each part of a maze (a row, a stripe, a tile...) and each again for its own
+//parts. A part's stream only depends on the seed and the path of ids down to
+//it, never on how many parts there are or which order they are made in.
+class SeedTree {
+  static final long GOLDEN = 0x9E3779B97F4A7C15L;
+  long seed;
+
+  SeedTree(long seed) {
+    this.seed = seed;
+  }
+
+  // scrambles the bits of the given value, as in SplitMix64
+  static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  // produces the seed of the part with the given id
+  SeedTree child(long id) {
+    return new SeedTree(SeedTree.mix(this.seed ^ SeedTree.mix(id * GOLDEN + GOLDEN)));
+  }
+
+  // produces a new stream of random numbers from this seed
+  SplittableRandom random() {
+    return new SplittableRandom(this.seed);
   }
 }
 
@@ -103,17 +304,204 @@ class EdgeComp implements Comparator<Edge> {
   }
 }
 
+//represents the dimensions of a rectangular grid of cells, where the index
+//of every cell is computed from its coordinates
+class Grid {
+  int width;
+  int height;
+
+  Grid(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  // computes the index of the cell at the given coordinates; cells are
+  // numbered column by column, in the order a maze generates its vertices
+  int index(int x, int y) {
+    return x * this.height + y;
+  }
+
+  // computes the x coordinate of the cell at the given index
+  int xOf(int idx) {
+    return idx / this.height;
+  }
+
+  // computes the y coordinate of the cell at the given index
+  int yOf(int idx) {
+    return idx % this.height;
+  }
+
+  // determines if the given coordinates are inside this grid
+  boolean contains(int x, int y) {
+    return x >= 0 && x < this.width && y >= 0 && y < this.height;
+  }
+
+  // counts the cells in this grid
+  int size() {
+    return this.width * this.height;
+  }
+}
+
+//represents the walls of a grid of cells, four bits to a cell: a set bit
+//means the wall on that side of the cell is standing
+class WallGrid {
+  static final int LEFT = 1;
+  static final int RIGHT = 2;
+  static final int TOP = 4;
+  static final int BOTTOM = 8;
+  static final int ALL = 15;
+
+  Grid grid;
+  byte[] cells;
+
+  WallGrid(Grid grid) {
+    this.grid = grid;
+    this.cells = new byte[grid.size()];
+    this.reset();
+  }
+
+  // EFFECT: puts every wall of every cell back up
+  void reset() {
+    Arrays.fill(this.cells, (byte) WallGrid.ALL);
+  }
+
+  // produces the walls standing around the given cell
+  int walls(int cell) {
+    return this.cells[cell];
+  }
+
+  // determines if the wall on the given side of the given cell is standing
+  boolean hasWall(int cell, int side) {
+    return (this.cells[cell] & side) != 0;
+  }
+
+  // computes the side of the first cell that the second, adjacent cell is on
+  int side(int from, int to) {
+    if (to == from - this.grid.height) {
+      return WallGrid.LEFT;
+    }
+    else if (to == from + this.grid.height) {
+      return WallGrid.RIGHT;
+    }
+    else if (to == from - 1) {
+      return WallGrid.TOP;
+    }
+    else {
+      return WallGrid.BOTTOM;
+    }
+  }
+
+  // produces the side facing the given one
+  int opposite(int side) {
+    if (side == WallGrid.LEFT) {
+      return WallGrid.RIGHT;
+    }
+    else if (side == WallGrid.RIGHT) {
+      return WallGrid.LEFT;
+    }
+    else if (side == WallGrid.TOP) {
+      return WallGrid.BOTTOM;
+    }
+    else {
+      return WallGrid.TOP;
+    }
+  }
+
+  // EFFECT: knocks down the wall between the two given adjacent cells,
+  // from both sides
+  void open(int from, int to) {
+    int side = this.side(from, to);
+    this.cells[from] = (byte) (this.cells[from] & ~side);
+    this.cells[to] = (byte) (this.cells[to] & ~this.opposite(side));
+  }
+
+  // EFFECT: knocks down one wall of the given cell only, such as a wall on the
+  // edge of the grid
+  void knockDown(int cell, int side) {
+    this.cells[cell] = (byte) (this.cells[cell] & ~side);
+  }
+
+  // EFFECT: hands every row of these walls to the given sink, top to bottom
+  void sendRows(IRowSink sink) {
+    byte[] row = new byte[this.grid.width];
+    for (int y = 0; y < this.grid.height; y++) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = this.cells[this.grid.index(x, y)];
+      }
+      sink.acceptRow(y, row);
+    }
+  }
+
+  // finds the cell on the other side of the given side of the given cell,
+  // or -1 if there is a wall in the way
+  int neighbor(int cell, int side) {
+    if (this.hasWall(cell, side)) {
+      return -1;
+    }
+    else if (side == WallGrid.LEFT) {
+      return cell - this.grid.height;
+    }
+    else if (side == WallGrid.RIGHT) {
+      return cell + this.grid.height;
+    }
+    else if (side == WallGrid.TOP) {
+      return cell - 1;
+    }
+    else {
+      return cell + 1;
+    }
+  }
+}
+
+//a snapshot of the passages of a maze that is never changed once it is made.
+//The maze it was taken from can go on being animated, painted and regenerated
+//while any number of threads search or analyse the snapshot, each with
+//solvers of its own, as nothing but its constructor ever writes to it.
+class MazeTopology {
+  final Grid grid;
+  // a copy of the passages, which nothing ever changes
+  final WallGrid passages;
+
+  MazeTopology(WallGrid passages) {
+    this.grid = new Grid(passages.grid.width, passages.grid.height);
+    this.passages = new WallGrid(this.grid);
+    System.arraycopy(passages.cells, 0, this.passages.cells, 0, passages.cells.length);
+  }
+
+  // produces the walls standing around the given cell
+  int walls(int cell) {
+    return this.passages.walls(cell);
+  }
+
+  // finds the cell on the other side of the given side of the given cell,
+  // or -1 if there is a wall in the way
+  int neighbor(int cell, int side) {
+    return this.passages.neighbor(cell, side);
+  }
+
+  // produces a new breadth first solver over this snapshot, for one thread
+  MazeSolver solver() {
+    return new MazeSolver(this.passages);
+  }
+
+  // produces a new path index over this snapshot, rooted at the first cell
+  PathIndex paths() {
+    PathIndex index = new PathIndex(this.passages, 0);
+    index.build();
+    return index;
+  }
+
+  // produces the distance from every cell of this snapshot to the given one
+  DistanceField distancesTo(int target) {
+    return new DistanceField(this.passages, target);
+  }
+}
+
 //represents a vertex in a graph
 class Vertex {
   int label;
   int x;
   int y;
-  ArrayList<Edge> outEdges;
-  boolean left = true;
-  boolean right = true;
-  boolean top = true;
-  boolean bottom = true;
-  Color col;
 
   Vertex(int label) {
     this.label = label;
@@ -123,52 +511,51 @@ class Vertex {
     this.label = label;
     this.x = x;
     this.y = y;
-    this.outEdges = new ArrayList<Edge>();
-    this.col = Color.white;
   }
 
-  // produces an image of this vertex
+  // produces an image of this vertex, unpainted
   WorldImage drawBlock(int w, int h) {
-    return new RectangleImage(w, h, OutlineMode.SOLID, this.col);
+    return new RectangleImage(w, h, OutlineMode.SOLID, Color.white);
   }
 
-  // produces an image of the border around this vertex
-  WorldImage drawWalls(int w, int h, Color col) {
+  // produces an image of this vertex with the given walls around it
+  WorldImage drawWalls(int w, int h, Color col, int walls) {
     WorldImage block = drawBlock(w, h);
     WorldImage vLine = new LineImage(new Posn(0, h), col);
     WorldImage hLine = new LineImage(new Posn(w, 0), col);
 
-    if (left) {
+    if ((walls & WallGrid.LEFT) != 0) {
       block = new BesideImage(vLine, block);
     }
-    if (right) {
+    if ((walls & WallGrid.RIGHT) != 0) {
       block = new BesideImage(block, vLine);
     }
-    if (top) {
+    if ((walls & WallGrid.TOP) != 0) {
       block = new AboveImage(hLine, block);
     }
-    if (bottom) {
+    if ((walls & WallGrid.BOTTOM) != 0) {
       block = new AboveImage(block, hLine);
     }
     return block;
   }
 
-  // removes lines if edge exists around this vertex
-  WorldImage drawWalls2(int w, int h, Color col) {
+  // produces an image of this vertex with lines only where the given walls
+  // are missing
+  WorldImage drawWalls2(int w, int h, Color col, int walls) {
     WorldImage block = drawBlock(w, h);
     WorldImage vLine = new LineImage(new Posn(0, h), col);
     WorldImage hLine = new LineImage(new Posn(w, 0), col);
 
-    if (!left) {
+    if ((walls & WallGrid.LEFT) == 0) {
       block = new BesideImage(vLine, block);
     }
-    if (!right) {
+    if ((walls & WallGrid.RIGHT) == 0) {
       block = new BesideImage(block, vLine);
     }
-    if (!top) {
+    if ((walls & WallGrid.TOP) == 0) {
       block = new AboveImage(hLine, block);
     }
-    if (!bottom) {
+    if ((walls & WallGrid.BOTTOM) == 0) {
       block = new AboveImage(block, hLine);
     }
     return block;
@@ -211,6 +598,15 @@ class Edge {
     this.y = makeY();
   }
 
+  // EFFECT: moves this edge to go between the given vertices with the given weight
+  void reset(Vertex from, Vertex to, int weight) {
+    this.from = from;
+    this.to = to;
+    this.weight = weight;
+    this.x = this.makeX();
+    this.y = this.makeY();
+  }
+
   // determines if this edge is the same as the given object
   public boolean equals(Object other) {
     if (other instanceof Edge) {
@@ -253,609 +649,3909 @@ class Edge {
       return Math.abs(from.x - to.x);
     }
   }
+}
+
+//the colour of every cell in one view of a maze, kept apart from the maze
+//itself as an index into a fixed palette, a byte to a cell, so that painting
+//a view never touches anything a search or another view reads
+class CellPaint {
+  // the colours a cell can be painted, from least to most important to show
+  // when a block of cells is drawn as one pixel
+  static final Color[] PALETTE = { Color.white, Color.pink, Color.red, Color.orange,
+      Color.green, Color.yellow, Color.blue };
+  byte[] indices;
+
+  CellPaint(int size) {
+    this.indices = new byte[size];
+  }
+
+  // produces the index of the given colour in the palette, or -1 if it is
+  // not in it
+  static int indexOf(Color col) {
+    for (int i = 0; i < CellPaint.PALETTE.length; i++) {
+      if (CellPaint.PALETTE[i].equals(col)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // produces the colour the given cell is painted
+  Color colorOf(int cell) {
+    return CellPaint.PALETTE[this.indices[cell]];
+  }
 
-  // visualizes the how we are moving through edges
-  // EFFECT: changes the this.col of the 'to' vertex to the given color.
-  public void drawEdge(Color col) {
-    this.to.col = col;
+  // produces the palette index of the colour the given cell is painted
+  int indexOf(int cell) {
+    return this.indices[cell];
   }
 
+  // EFFECT: paints the given cell the given colour, which has to be in the palette
+  void paint(int cell, Color col) {
+    int index = CellPaint.indexOf(col);
+    if (index < 0) {
+      throw new IllegalArgumentException(col + " is not in the palette");
+    }
+    this.indices[cell] = (byte) index;
+  }
+
+  // EFFECT: paints every cell white again
+  void reset() {
+    Arrays.fill(this.indices, (byte) 0);
+  }
 }
 
-//represents a maze
-class Maze extends World {
-  ArrayList<Edge> span;
-  Random rand;
-  ArrayList<Vertex> vertices;
-  ArrayList<Edge> edges;
-  int width;
-  int height;
-  int gameSize = 500;
-  boolean dfs;
-  boolean bfs;
-  boolean solveMaze = false;
-  ArrayList<Edge> solution = new ArrayList<Edge>();
-  ArrayList<Vertex> moves = new ArrayList<Vertex>();
-  boolean found = false;
-  ArrayList<Edge> path;
-  boolean manualMode = false;
-  Vertex vPlayable;
-  int currIdxOfE = 0;
-  boolean gameOver;
-  int movesCount = 0;
+//which part of a maze is in view and how big it is drawn: either a whole
+//number of pixels to every cell, or once zoomed out past one pixel to a cell, a
+//square block of cells to every pixel
+class Camera {
+  // the most pixels a cell is ever drawn across
+  static final int MAX_CELL_SIZE = 256;
+  Grid grid;
+  int viewWidth;
+  int viewHeight;
+  // the pixels across every cell, which is 1 when zoomed out past that
+  int cellSize;
+  // the cells across the block every pixel stands for, a power of two, which
+  // is 1 unless zoomed out past one pixel to a cell
+  int lod;
+  // the cell in the top left corner of the view
+  int left;
+  int top;
+  boolean following = true;
+  // counts the changes to the view, so a renderer can tell when to redraw it all
+  int changes;
 
-  Maze(int width, int height, boolean dfs, boolean bfs, boolean manual) {
-    this.width = width;
-    this.height = height;
-    this.rand = new Random();
-    this.vertices = new ArrayList<Vertex>();
-    this.edges = new ArrayList<Edge>();
-    this.span = new ArrayList<Edge>();
-    this.path = new ArrayList<Edge>();
-    this.dfs = dfs;
-    this.bfs = bfs;
-    this.manualMode = manual;
-    this.gameOver = false;
+  Camera(Grid grid, int viewWidth, int viewHeight) {
+    this.grid = grid;
+    this.viewWidth = viewWidth;
+    this.viewHeight = viewHeight;
+    this.fit();
+  }
 
-    this.genVertices();
-    this.genEdges();
-    this.buildSpan();
-    this.genOutEdge();
-    this.buildListofShortest();
-    this.vPlayable = this.vertices.get(0);
+  // EFFECT: zooms in or out until the whole grid just fits in the view
+  void fit() {
+    this.lod = 1;
+    while ((this.grid.width + this.lod - 1) / this.lod > this.viewWidth
+        || (this.grid.height + this.lod - 1) / this.lod > this.viewHeight) {
+      this.lod = this.lod * 2;
+    }
+    this.cellSize = Math.max(1, Math.min(Camera.MAX_CELL_SIZE,
+        Math.min(this.viewWidth / this.grid.width, this.viewHeight / this.grid.height)));
+    this.moveTo(0, 0);
+    this.changes++;
   }
 
-  // convenience constructor for testing
-  Maze(int seed, boolean dfs, boolean bfs, boolean manual) {
-    this.width = 2;
-    this.height = 2;
-    this.rand = new Random(seed);
-    this.vertices = new ArrayList<Vertex>();
-    this.edges = new ArrayList<Edge>();
-    this.span = new ArrayList<Edge>();
-    this.path = new ArrayList<Edge>();
-    this.dfs = dfs;
-    this.bfs = bfs;
-    this.manualMode = manual;
-    this.gameOver = false;
+  // counts the cells across the view, including one only partly in view
+  int cellsAcross() {
+    return (this.viewWidth + this.cellSize - 1) / this.cellSize * this.lod;
+  }
 
-    this.genVertices();
-    this.genEdges();
-    this.buildSpan();
-    this.genOutEdge();
-    this.buildListofShortest();
-    this.vPlayable = this.vertices.get(0);
+  // counts the cells down the view, including one only partly in view
+  int cellsDown() {
+    return (this.viewHeight + this.cellSize - 1) / this.cellSize * this.lod;
   }
 
-  // determines which edges are connected to each vertex in this maze
-  // EFFECT: updates the out edges field of the vertices in this maze
-  public void genOutEdge() {
-    for (Vertex v : this.vertices) {
-
-      // left box
-      if (v.x - 1 >= 0) { // left exists
-        int idx = indexFinder(v.x - 1, v.y);
-        Edge e = new Edge(v, this.vertices.get(idx), this.rand.nextInt(50));
-        Edge eRev = new Edge(this.vertices.get(idx), v, this.rand.nextInt(50));
-        if (this.span.contains(e) || this.span.contains(eRev)) {
-          v.outEdges.add(e);
-        }
-      }
+  // finds the column in the middle of the part of the grid in view
+  int middleX() {
+    return this.left + Math.min(this.cellsAcross(), this.grid.width - this.left) / 2;
+  }
 
-      // right
-      if (v.x + 1 < this.width) { // right exists
-        int idx = indexFinder(v.x + 1, v.y);
-        Edge e = new Edge(v, this.vertices.get(idx), this.rand.nextInt(50));
-        Edge eRev = new Edge(this.vertices.get(idx), v, this.rand.nextInt(50));
-        if (this.span.contains(e) || this.span.contains(eRev)) {
-          v.outEdges.add(e);
-        }
-      }
+  // finds the row in the middle of the part of the grid in view
+  int middleY() {
+    return this.top + Math.min(this.cellsDown(), this.grid.height - this.top) / 2;
+  }
 
-      // top
-      if (v.y - 1 >= 0) { // top exists
-        int idx = indexFinder(v.x, v.y - 1);
-        Edge e = new Edge(v, this.vertices.get(idx), this.rand.nextInt(50));
-        Edge eRev = new Edge(this.vertices.get(idx), v, this.rand.nextInt(50));
-        if (this.span.contains(e) || this.span.contains(eRev)) {
-          v.outEdges.add(e);
-        }
-      }
+  // determines if the cell at the given coordinates is at least partly in view
+  boolean isVisible(int x, int y) {
+    return x >= this.left && x < this.left + this.cellsAcross() && y >= this.top
+        && y < this.top + this.cellsDown();
+  }
 
-      // bottom
-      if (v.y + 1 < this.height) { // bottom exists
-        int idx = indexFinder(v.x, v.y + 1);
-        Edge e = new Edge(v, this.vertices.get(idx), this.rand.nextInt(50));
-        Edge eRev = new Edge(this.vertices.get(idx), v, this.rand.nextInt(50));
-        if (this.span.contains(e) || this.span.contains(eRev)) {
-          v.outEdges.add(e);
-        }
-      }
-      removeDuplicates(v.outEdges);
+  // EFFECT: moves the view so the given cell is in the top left corner, as
+  // near as it can while keeping as much of the grid in view as possible, and
+  // lining up with the blocks when zoomed out
+  void moveTo(int left, int top) {
+    int oldLeft = this.left;
+    int oldTop = this.top;
+    int fullAcross = this.viewWidth / this.cellSize * this.lod;
+    int fullDown = this.viewHeight / this.cellSize * this.lod;
+    this.left = Math.max(0, Math.min(left, this.grid.width - fullAcross));
+    this.top = Math.max(0, Math.min(top, this.grid.height - fullDown));
+    this.left = this.left - this.left % this.lod;
+    this.top = this.top - this.top % this.lod;
+    if (this.left != oldLeft || this.top != oldTop) {
+      this.changes++;
     }
   }
 
-  // builds a minimum spanning graph for this maze
-  // EFFECT: updates the span field of this maze
-  void buildSpan() {
-    HashMap<Vertex, Vertex> reps = new HashMap<Vertex, Vertex>();
-    ArrayList<Edge> worklist = new ArrayList<Edge>(this.edges);
-    Utils u = new Utils();
-    u.mergeSort(worklist, new EdgeComp());
+  // EFFECT: moves the view so the given cell is in the middle of it
+  void centreOn(int x, int y) {
+    this.moveTo(x - this.cellsAcross() / 2, y - this.cellsDown() / 2);
+  }
 
-    // map every node in this maze to itself
-    for (int i = 0; i < this.vertices.size(); i++) {
-      reps.put(this.vertices.get(i), this.vertices.get(i));
+  // EFFECT: keeps the given cell in the middle of the view, if this camera is
+  // following it
+  void follow(int x, int y) {
+    if (this.following) {
+      this.centreOn(x, y);
     }
+  }
 
-    while (worklist.size() > 0) {
-      Edge temp = worklist.get(0);
-      worklist.remove(0);
+  // EFFECT: moves the view by a quarter of its size in the given directions
+  void pan(int dx, int dy) {
+    this.moveTo(this.left + dx * Math.max(1, this.cellsAcross() / 4),
+        this.top + dy * Math.max(1, this.cellsDown() / 4));
+  }
 
-      if ((u.find(reps, temp.from)).equals(temp.from)) {
-        this.span.add(temp);
-        u.union(reps, temp.from, temp.to);
-      }
+  // EFFECT: draws cells twice as big, or blocks half as big, keeping the
+  // middle of the view where it is
+  void zoomIn() {
+    int x = this.middleX();
+    int y = this.middleY();
+    if (this.lod > 1) {
+      this.lod = this.lod / 2;
+    }
+    else {
+      this.cellSize = Math.min(Camera.MAX_CELL_SIZE, this.cellSize * 2);
     }
+    this.changes++;
+    this.centreOn(x, y);
   }
 
-  // generates a list of vertices
-  // EFFECT: updates the vertices field
-  void genVertices() {
-    int label = 0;
-    for (int x = 0; x < this.width; x++) {
-      for (int y = 0; y < this.height; y++) {
-        Vertex newV = new Vertex(label, x, y);
-        this.vertices.add(newV);
-        label++;
-      }
+  // EFFECT: draws cells half as big, or blocks twice as big once cells are a
+  // pixel across, until the whole grid is in view, keeping the middle of the
+  // view where it is
+  void zoomOut() {
+    int x = this.middleX();
+    int y = this.middleY();
+    if (this.cellSize > 1) {
+      this.cellSize = this.cellSize / 2;
+    }
+    else if (this.cellsAcross() < this.grid.width || this.cellsDown() < this.grid.height) {
+      this.lod = this.lod * 2;
     }
+    this.changes++;
+    this.centreOn(x, y);
   }
+}
 
-  // generates a list of random edges of random weights
-  // EFFECT: updates the edges field of this maze
-  void genEdges() {
-    for (int i = 0; i < this.vertices.size(); i++) {
-      Vertex currVer = this.vertices.get(i);
-      ArrayList<Vertex> temp = new ArrayList<Vertex>(4);
-
-      if (currVer.x - 1 >= 0) {
-        int idx = indexFinder(currVer.x - 1, currVer.y);
-        Vertex currVer2 = this.vertices.get(idx);
-        temp.add(currVer2);
-      }
-      if (currVer.x + 1 < this.width) {
-        int idx = indexFinder(currVer.x + 1, currVer.y);
-        Vertex currVer2 = this.vertices.get(idx);
-        temp.add(currVer2);
-      }
-
-      if (currVer.y - 1 >= 0) {
-        int idx = indexFinder(currVer.x, currVer.y - 1);
-        Vertex currVer2 = this.vertices.get(idx);
-        temp.add(currVer2);
-      }
-      if (currVer.y + 1 < this.height) {
-        int idx = indexFinder(currVer.x, currVer.y + 1);
-        Vertex currVer2 = this.vertices.get(idx);
-        temp.add(currVer2);
-      }
+//a summary of a maze for every power-of-two block size, used to draw views
+//where a pixel stands for a whole block of cells. Every block knows how many
+//walls are standing in it and the most important colour in it, and a change to
+//one cell only updates the blocks above it.
+class LodPyramid {
+  // every shade of grey, from black to white
+  static final Color[] GREYS = LodPyramid.greys();
+  // the sizes of the blocks at every level, level 0 being the cells themselves
+  Grid[] levels;
+  // the walls standing in every block, and the palette index of its most
+  // important colour, at every level
+  int[][] walls;
+  byte[][] ranks;
 
-      for (int j = 0; j < temp.size(); j++) {
-        int weight = this.rand.nextInt(50);
-        Vertex v1 = temp.get(j);
-        Edge e1 = new Edge(currVer, v1, weight);
-        Edge eTemp = new Edge(v1, currVer, weight);
+  LodPyramid(Grid grid, int levels) {
+    this.levels = new Grid[levels];
+    this.walls = new int[levels][];
+    this.ranks = new byte[levels][];
+    for (int l = 0; l < levels; l++) {
+      int size = 1 << l;
+      this.levels[l] = new Grid((grid.width + size - 1) / size, (grid.height + size - 1) / size);
+      this.walls[l] = new int[this.levels[l].size()];
+      this.ranks[l] = new byte[this.levels[l].size()];
+    }
+  }
 
-        if (!this.edges.contains(eTemp)) {
-          this.edges.add(e1);
-        }
-      }
+  // produces every shade of grey, from black to white
+  static Color[] greys() {
+    Color[] result = new Color[256];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = new Color(i, i, i);
     }
+    return result;
+  }
+
+  // ranks the given colour by its place in the palette, with colours that are
+  // not in it counting as white
+  static int rank(Color col) {
+    return Math.max(0, CellPaint.indexOf(col));
   }
 
-  // removes any duplicates in the given list
-  public void removeDuplicates(ArrayList<Edge> list) {
-    for (int i = 0; i < list.size(); i++) {
-      Edge e1 = list.get(i);
-      for (int j = i + 1; j < list.size(); j++) {
-        Edge e2 = list.get(j);
-        if (e2.equals(e1)) {
-          list.remove(j);
+  // EFFECT: records the walls and colour of the given cell, and updates every
+  // block it is in
+  void set(int cell, int walls, int rank) {
+    Grid cells = this.levels[0];
+    int x = cells.xOf(cell);
+    int y = cells.yOf(cell);
+    int change = walls - this.walls[0][cell];
+    this.walls[0][cell] = walls;
+    this.ranks[0][cell] = (byte) rank;
+    for (int l = 1; l < this.levels.length; l++) {
+      Grid below = this.levels[l - 1];
+      x = x / 2;
+      y = y / 2;
+      int block = this.levels[l].index(x, y);
+      this.walls[l][block] += change;
+      byte best = 0;
+      for (int bx = 2 * x; bx < Math.min(2 * x + 2, below.width); bx++) {
+        for (int by = 2 * y; by < Math.min(2 * y + 2, below.height); by++) {
+          best = (byte) Math.max(best, this.ranks[l - 1][below.index(bx, by)]);
         }
       }
+      this.ranks[l][block] = best;
     }
   }
 
-  // finds the index of the vertex with the given coordinates
-  int indexFinder(int x, int y) {
-    for (int i = 0; i < this.vertices.size(); i++) {
-      Vertex v1 = this.vertices.get(i);
-      if (v1.x == x && v1.y == y) {
-        return i;
-      }
+  // produces the colour a pixel standing for the given block is drawn in: its
+  // most important colour, or if it is all white, a grey that is darker the
+  // more of its walls are standing
+  Color shade(int level, int bx, int by, int size) {
+    Grid blocks = this.levels[level];
+    int block = blocks.index(bx, by);
+    if (this.ranks[level][block] > 0) {
+      return CellPaint.PALETTE[this.ranks[level][block]];
+    }
+    else {
+      Grid cells = this.levels[0];
+      int area = Math.min(size, cells.width - bx * size) * Math.min(size, cells.height - by * size);
+      return GREYS[255 - 255 * this.walls[level][block] / (4 * area)];
     }
-    return -1;
   }
+}
 
-  // build a list of the path between the first and last vertex
-  // in this maze
-  // EFFECT: updates the path field of this maze
-  void buildListofShortest() {
-    int index = 0;
-    boolean flag = false;
-    Vertex to = this.vertices.get(this.vertices.size() - 1);
-    Vertex v = this.vertices.get(0);
+//draws the cells of a maze the camera can see onto one raster the size of the
+//view, keeping it from frame to frame and redrawing only the cells that have
+//changed since the last frame, unless the view itself has changed
+class CellRenderer {
+  Grid grid;
+  Camera camera;
+  ComputedPixelImage image;
+  // the cells that have to be redrawn before the next frame
+  BitSet dirty;
+  // whether the whole view has to be redrawn before the next frame
+  boolean redrawAll;
+  // the changes of the camera when the view was last drawn in full
+  int drawnChanges;
+  // the summary of the maze for zoomed out views, made the first time one is drawn
+  LodPyramid pyramid;
 
-    for (int i = 0; i < this.span.size() && !flag; i++) {
+  CellRenderer(Grid grid, int viewWidth, int viewHeight) {
+    this.grid = grid;
+    this.camera = new Camera(grid, viewWidth, viewHeight);
+    this.image = new ComputedPixelImage(viewWidth, viewHeight);
+    this.dirty = new BitSet(grid.size());
+    this.markAll();
+  }
 
-      index = findEdgeinSpan(v);
-      Edge e = this.span.get(index);
+  // EFFECT: makes the given cell be redrawn before the next frame
+  void markDirty(int cell) {
+    this.dirty.set(cell);
+  }
 
-      if (e.from.equals(to) || e.to.equals(to)) {
-        flag = true;
-      }
+  // EFFECT: makes every cell be redrawn before the next frame
+  void markAll() {
+    this.dirty.set(0, this.grid.size());
+    this.redrawAll = true;
+  }
+
+  // brings the view up to date with the given walls and vertex colours, and
+  // produces the number of cells or blocks that were redrawn
+  // EFFECT: redraws every dirty cell in view, or the whole view if the camera
+  // has moved, after which no cell is dirty
+  int render(WallGrid walls, CellPaint paint) {
+    boolean whole = this.redrawAll || this.camera.changes != this.drawnChanges;
+    if (this.camera.lod > 1 && this.pyramid == null) {
+      this.pyramid = new LodPyramid(this.grid,
+          32 - Integer.numberOfLeadingZeros(Math.max(this.grid.width, this.grid.height)) + 1);
+      this.dirty.set(0, this.grid.size());
+    }
+    int redrawn = 0;
+    if (this.pyramid != null || !whole) {
+      for (int cell = this.dirty.nextSetBit(0); cell >= 0 && cell < this.grid.size();
+          cell = this.dirty.nextSetBit(cell + 1)) {
+        if (this.pyramid != null) {
+          this.pyramid.set(cell, Integer.bitCount(walls.walls(cell)), paint.indexOf(cell));
+        }
+        if (!whole && this.camera.isVisible(this.grid.xOf(cell), this.grid.yOf(cell))) {
+          this.drawVisible(this.grid.xOf(cell), this.grid.yOf(cell), walls, paint);
+          redrawn++;
+        }
+      }
+    }
+    this.dirty.clear();
+    if (whole) {
+      redrawn = this.drawView(walls, paint);
+    }
+    return redrawn;
+  }
+
+  // EFFECT: clears the view and draws every cell or block in it, and produces
+  // how many there were
+  int drawView(WallGrid walls, CellPaint paint) {
+    int lod = this.camera.lod;
+    int right = Math.min(this.grid.width, this.camera.left + this.camera.cellsAcross());
+    int bottom = Math.min(this.grid.height, this.camera.top + this.camera.cellsDown());
+    int drawn = 0;
+    this.fill(0, 0, this.image.width, this.image.height, Color.white);
+    for (int x = this.camera.left; x < right; x = x + lod) {
+      for (int y = this.camera.top; y < bottom; y = y + lod) {
+        this.drawVisible(x, y, walls, paint);
+        drawn++;
+      }
+    }
+    this.redrawAll = false;
+    this.drawnChanges = this.camera.changes;
+    return drawn;
+  }
+
+  // EFFECT: draws the cell at the given coordinates, or when zoomed out the
+  // pixel for the block it is in
+  void drawVisible(int x, int y, WallGrid walls, CellPaint paint) {
+    if (this.camera.lod > 1) {
+      int lod = this.camera.lod;
+      int level = Integer.numberOfTrailingZeros(lod);
+      this.fill((x - this.camera.left) / lod, (y - this.camera.top) / lod, 1, 1,
+          this.pyramid.shade(level, x / lod, y / lod, lod));
+    }
+    else {
+      int cell = this.grid.index(x, y);
+      this.drawCell(cell, paint.colorOf(cell), walls.walls(cell));
+    }
+  }
+
+  // EFFECT: fills the given cell with its colour where it is in view, and draws
+  // a black line on each of its sides that still has a wall
+  void drawCell(int cell, Color col, int walls) {
+    int size = this.camera.cellSize;
+    int left = (this.grid.xOf(cell) - this.camera.left) * size;
+    int top = (this.grid.yOf(cell) - this.camera.top) * size;
+    this.fill(left, top, size, size, col);
+    if ((walls & WallGrid.LEFT) != 0) {
+      this.fill(left, top, 1, size, Color.black);
+    }
+    if ((walls & WallGrid.RIGHT) != 0) {
+      this.fill(left + size - 1, top, 1, size, Color.black);
+    }
+    if ((walls & WallGrid.TOP) != 0) {
+      this.fill(left, top, size, 1, Color.black);
+    }
+    if ((walls & WallGrid.BOTTOM) != 0) {
+      this.fill(left, top + size - 1, size, 1, Color.black);
+    }
+  }
+
+  // EFFECT: fills the part of the given rectangle that is in view with the
+  // given colour
+  void fill(int x, int y, int w, int h, Color col) {
+    int left = Math.max(0, x);
+    int top = Math.max(0, y);
+    int right = Math.min(this.image.width, x + w);
+    int bottom = Math.min(this.image.height, y + h);
+    if (left < right && top < bottom) {
+      this.image.setPixels(left, top, right - left, bottom - top, col);
+    }
+  }
+
+  // places the raster in the top left corner of the given scene
+  // EFFECT: adds the raster to the given scene
+  void placeOn(WorldScene scene) {
+    scene.placeImageXY(this.image, this.image.width / 2, this.image.height / 2);
+  }
+}
+
+//decides how many steps of an animation to take on each frame, so that every
+//phase of the animation is spread over a fixed number of frames while each
+//frame stays within a wall-clock budget
+class AnimationScheduler {
+  // the time one frame may spend on ticking and rendering, in nanoseconds
+  long budget;
+  // the number of frames each phase of the animation should take
+  int frames;
+  int framesLeft;
+  // the time one step has been measured to take, ticking and rendering it,
+  // in nanoseconds; 0 until the first step is measured
+  double nanosPerStep;
+  // the time the last frame took to render, in nanoseconds
+  long renderNanos;
+
+  AnimationScheduler(long budget, int frames) {
+    this.budget = budget;
+    this.frames = frames;
+    this.startPhase();
+  }
+
+  // EFFECT: starts spreading a new phase over the frames
+  void startPhase() {
+    this.framesLeft = this.frames;
+  }
+
+  // produces the number of steps to take this frame, given how many are left
+  // in the phase: enough to finish the phase in the frames it has left, but no
+  // more than fit in the budget
+  int batch(int remaining) {
+    int paced = (remaining + Math.max(1, this.framesLeft) - 1) / Math.max(1, this.framesLeft);
+    if (this.nanosPerStep > 0) {
+      paced = (int) Math.min(paced, this.budget / this.nanosPerStep);
+    }
+    return Math.max(1, paced);
+  }
+
+  // EFFECT: remembers how long the last frame took to render
+  void recordRender(long nanos) {
+    this.renderNanos = nanos;
+  }
+
+  // EFFECT: counts off a frame that took the given number of steps in the
+  // given time, and updates the measured cost of a step with it and with the
+  // time the last frame took to render. Frames without a step, such as those
+  // spent in the menu, are not part of any phase and are not counted.
+  void record(int steps, long tickNanos) {
+    if (steps > 0) {
+      this.framesLeft--;
+      double perStep = (double) (tickNanos + this.renderNanos) / steps;
+      if (this.nanosPerStep == 0) {
+        this.nanosPerStep = perStep;
+      }
+      else {
+        // smooths out one-off pauses such as garbage collections
+        this.nanosPerStep = 0.75 * this.nanosPerStep + 0.25 * perStep;
+      }
+    }
+  }
+}
+
+//keeps running totals of the work done by every phase of building and solving
+//mazes in this process, and reports every run of a phase to Flight Recorder
+class MazeMetrics {
+  static final int GEN_VERTICES = 0;
+  static final int GEN_EDGES = 1;
+  static final int BUILD_SPAN = 2;
+  static final int GEN_OUT_EDGE = 3;
+  static final int BUILD_SHORTEST = 4;
+  static final int SEARCH = 5;
+  static final String[] PHASES = { "genVertices", "genEdges", "buildSpan", "genOutEdge",
+      "buildListofShortest", "search" };
+  // the totals of every maze in this process
+  static final MazeMetrics GLOBAL = new MazeMetrics();
+  static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  // the number of runs, nanoseconds, cells, edges and bytes allocated of
+  // every phase, indexed by phase
+  LongAdder[] runs = MazeMetrics.adders();
+  LongAdder[] nanos = MazeMetrics.adders();
+  LongAdder[] cells = MazeMetrics.adders();
+  LongAdder[] edges = MazeMetrics.adders();
+  LongAdder[] bytes = MazeMetrics.adders();
+  // the cells expanded by every search, and the most cells any search had
+  // waiting in its worklist
+  LongAdder expanded = new LongAdder();
+  LongAccumulator peakWorklist = new LongAccumulator(Math::max, 0);
+
+  // produces a counter for every phase
+  static LongAdder[] adders() {
+    LongAdder[] result = new LongAdder[PHASES.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = new LongAdder();
+    }
+    return result;
+  }
+
+  // measures the bytes the current thread has allocated so far, or 0 if the
+  // JVM cannot tell
+  static long allocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) THREADS)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // starts timing a run of the given phase on the current thread
+  PhaseEvent start(int phase) {
+    PhaseEvent event = new PhaseEvent();
+    event.phase = PHASES[phase];
+    event.index = phase;
+    event.startBytes = MazeMetrics.allocatedBytes();
+    event.startNanos = System.nanoTime();
+    event.begin();
+    return event;
+  }
+
+  // finishes timing a run of a phase that worked through the given numbers of
+  // cells and edges
+  // EFFECT: adds the run to the totals of its phase, and commits its event
+  void finish(PhaseEvent event, long cells, long edges) {
+    event.end();
+    long nanos = System.nanoTime() - event.startNanos;
+    event.cells = cells;
+    event.edges = edges;
+    event.bytesAllocated = MazeMetrics.allocatedBytes() - event.startBytes;
+    event.commit();
+    this.runs[event.index].increment();
+    this.nanos[event.index].add(nanos);
+    this.cells[event.index].add(cells);
+    this.edges[event.index].add(edges);
+    this.bytes[event.index].add(event.bytesAllocated);
+  }
+
+  // finishes timing a search that expanded the given number of cells, and had
+  // at most the given number waiting in its worklist
+  // EFFECT: adds the search to the totals, and commits its events
+  void finishSearch(PhaseEvent event, ISolver solver, boolean found, long edges) {
+    SearchEvent search = new SearchEvent();
+    search.solver = solver.getClass().getName();
+    search.found = found;
+    search.expanded = solver.explored();
+    search.peakWorklist = solver.peakWorklist();
+    search.commit();
+    this.expanded.add(solver.explored());
+    this.peakWorklist.accumulate(solver.peakWorklist());
+    this.finish(event, solver.explored(), edges);
+  }
+
+  // produces a table of the totals of every phase, one line to a phase
+  String report() {
+    StringBuilder result = new StringBuilder();
+    result.append(String.format("%-20s %8s %12s %12s %12s %14s%n", "phase", "runs", "ms",
+        "cells", "edges", "bytes"));
+    for (int i = 0; i < PHASES.length; i++) {
+      result.append(String.format("%-20s %8d %12.3f %12d %12d %14d%n", PHASES[i],
+          this.runs[i].sum(), this.nanos[i].sum() / 1e6, this.cells[i].sum(),
+          this.edges[i].sum(), this.bytes[i].sum()));
+    }
+    result.append(String.format("expanded %d cells, peak worklist %d%n", this.expanded.sum(),
+        this.peakWorklist.get()));
+    return result.toString();
+  }
+}
+
+//a Flight Recorder event for one run of a phase of building or solving a maze
+@Name("Mazes.Phase")
+@Label("Maze Phase")
+@Category("Mazes")
+class PhaseEvent extends Event {
+  @Label("Phase")
+  String phase;
+  @Label("Cells")
+  long cells;
+  @Label("Edges")
+  long edges;
+  @Label("Bytes Allocated")
+  @DataAmount(DataAmount.BYTES)
+  long bytesAllocated;
+  // where the run started, which is not recorded
+  transient int index;
+  transient long startBytes;
+  transient long startNanos;
+}
+
+//a Flight Recorder event for one search through a maze
+@Name("Mazes.Search")
+@Label("Maze Search")
+@Category("Mazes")
+class SearchEvent extends Event {
+  @Label("Solver")
+  String solver;
+  @Label("Found")
+  boolean found;
+  @Label("Cells Expanded")
+  long expanded;
+  @Label("Peak Worklist")
+  long peakWorklist;
+}
+
+//represents a maze that can be played in a window. Its walls and passages are
+//packed bits, but it still keeps a Vertex for every cell and an Edge for every
+//candidate wall, spanning tree edge and solution step, which its animation,
+//searches and manual play are built on. That is dozens of bytes a cell, so very
+//big mazes are generated, analysed and exported headless instead, with the
+//generators, MazeFile and MazeExport, which keep only the bits.
+class Maze extends World {
+  ArrayList<Edge> span;
+  // the seed this maze was built from, which builds the same maze again
+  long seed;
+  RandomGenerator rand;
+  Grid grid;
+  WallGrid passages;
+  WallGrid walls;
+  MazeSolver solver;
+  // answers how far apart any two cells are, and lists the path between them
+  PathIndex paths;
+  DistanceField toExit;
+  IMazeGenerator generator;
+  // the id of the algorithm the generator uses, as maze files record it
+  int algorithm;
+  CellRenderer renderer;
+  // the colour of every cell as this maze shows it, kept apart from its vertices
+  CellPaint paint;
+  // the last snapshot taken of the passages, until the maze is rebuilt
+  MazeTopology topology;
+  AnimationScheduler animation = new AnimationScheduler(8000000, 300);
+  // where the work of every phase of this maze is counted
+  MazeMetrics metrics = MazeMetrics.GLOBAL;
+  ArrayList<Vertex> vertices;
+  ArrayList<Edge> edges;
+  int width;
+  int height;
+  int gameSize = 500;
+  boolean dfs;
+  boolean bfs;
+  boolean solveMaze = false;
+  ArrayList<Edge> solution = new ArrayList<Edge>();
+  // the index of the next solution edge to animate
+  int solutionIdx = 0;
+  ArrayList<Vertex> moves = new ArrayList<Vertex>();
+  boolean found = false;
+  ArrayList<Edge> path;
+  boolean manualMode = false;
+  Vertex vPlayable;
+  int currIdxOfE = 0;
+  boolean gameOver;
+  int movesCount = 0;
+  int wrongMoves = 0;
+
+  Maze(int width, int height, boolean dfs, boolean bfs, boolean manual) {
+    this(width, height, new SplittableRandom().nextLong(), dfs, bfs, manual);
+  }
+
+  Maze(int width, int height, long seed, boolean dfs, boolean bfs, boolean manual) {
+    this(width, height, seed, MazeFile.KRUSKAL, dfs, bfs, manual);
+  }
+
+  Maze(int width, int height, long seed, int algorithm, boolean dfs, boolean bfs,
+      boolean manual) {
+    this.width = width;
+    this.height = height;
+    this.grid = new Grid(width, height);
+    this.passages = new WallGrid(this.grid);
+    this.walls = new WallGrid(this.grid);
+    this.solver = new MazeSolver(this.passages);
+    this.seed = seed;
+    this.rand = new SeedTree(seed).random();
+    this.algorithm = algorithm;
+    this.generator = AMazeGenerator.make(algorithm, this.grid, this.rand);
+    this.paint = new CellPaint(this.grid.size());
+    this.vertices = new ArrayList<Vertex>();
+    this.edges = new ArrayList<Edge>();
+    this.span = new ArrayList<Edge>();
+    this.path = new ArrayList<Edge>();
+    this.dfs = dfs;
+    this.bfs = bfs;
+    this.manualMode = manual;
+    this.gameOver = false;
+
+    this.genVertices();
+    this.genEdges();
+    this.buildSpan();
+    this.genOutEdge();
+    this.paths = new PathIndex(this.passages, 0);
+    this.buildListofShortest();
+    this.toExit = new DistanceField(this.passages, this.grid.size() - 1);
+    this.renderer = new CellRenderer(this.grid, this.gameSize, this.gameSize);
+    this.vPlayable = this.vertices.get(0);
+  }
+
+  // convenience constructor for testing
+  Maze(int seed, boolean dfs, boolean bfs, boolean manual) {
+    this.width = 2;
+    this.height = 2;
+    this.grid = new Grid(2, 2);
+    this.passages = new WallGrid(this.grid);
+    this.walls = new WallGrid(this.grid);
+    this.solver = new MazeSolver(this.passages);
+    this.seed = seed;
+    this.rand = new Random(seed);
+    this.algorithm = MazeFile.KRUSKAL;
+    this.generator = new KruskalGenerator(this.grid, this.rand);
+    this.paint = new CellPaint(this.grid.size());
+    this.vertices = new ArrayList<Vertex>();
+    this.edges = new ArrayList<Edge>();
+    this.span = new ArrayList<Edge>();
+    this.path = new ArrayList<Edge>();
+    this.dfs = dfs;
+    this.bfs = bfs;
+    this.manualMode = manual;
+    this.gameOver = false;
+
+    this.genVertices();
+    this.genEdges();
+    this.buildSpan();
+    this.genOutEdge();
+    this.paths = new PathIndex(this.passages, 0);
+    this.buildListofShortest();
+    this.toExit = new DistanceField(this.passages, this.grid.size() - 1);
+    this.renderer = new CellRenderer(this.grid, this.gameSize, this.gameSize);
+    this.vPlayable = this.vertices.get(0);
+  }
+
+  // moves on to the seed of the next maze, so a run of regenerated mazes can
+  // be built again from the seed of the first
+  // EFFECT: updates the seed and rand of this maze and its generator
+  void nextSeed() {
+    this.seed = new SeedTree(this.seed).child(0).seed;
+    this.rand = new SeedTree(this.seed).random();
+    this.generator.reseed(this.rand);
+  }
+
+  // builds this maze again from its seed with the algorithm of the given id
+  // EFFECT: replaces the generator of this maze, and rebuilds the maze in place
+  void useGenerator(int algorithm) {
+    this.algorithm = algorithm;
+    this.rand = new SeedTree(this.seed).random();
+    this.generator = AMazeGenerator.make(algorithm, this.grid, this.rand);
+    this.rebuild();
+  }
+
+  // determines which vertices of this maze are connected by its span
+  // EFFECT: knocks down the passages walls between the ends of every span edge
+  public void genOutEdge() {
+    PhaseEvent event = this.metrics.start(MazeMetrics.GEN_OUT_EDGE);
+    this.passages.reset();
+    for (Edge e : this.span) {
+      this.passages.open(e.from.label, e.to.label);
+    }
+    this.metrics.finish(event, this.grid.size(), this.span.size());
+  }
+
+  // builds a minimum spanning graph for this maze
+  // EFFECT: replaces the span field of this maze
+  void buildSpan() {
+    PhaseEvent event = this.metrics.start(MazeMetrics.BUILD_SPAN);
+    IMazeGenerator g = this.generator;
+    g.buildSpan();
+    for (int i = 0; i < g.spanSize(); i++) {
+      int e = g.spanEdge(i);
+      this.putEdge(this.span, i, this.vertices.get(g.edgeFrom(e)),
+          this.vertices.get(g.edgeTo(e)), g.edgeWeight(e));
+    }
+    this.truncate(this.span, g.spanSize());
+    this.metrics.finish(event, this.grid.size(), g.examined());
+  }
+
+  // generates a list of vertices, unless the ones already there cover the grid
+  // EFFECT: updates the vertices field
+  void genVertices() {
+    PhaseEvent event = this.metrics.start(MazeMetrics.GEN_VERTICES);
+    if (this.vertices.size() != this.grid.size()) {
+      this.vertices.clear();
+      this.vertices.ensureCapacity(this.grid.size());
+      for (int x = 0; x < this.width; x++) {
+        for (int y = 0; y < this.height; y++) {
+          Vertex newV = new Vertex(this.grid.index(x, y), x, y);
+          this.vertices.add(newV);
+        }
+      }
+    }
+    this.metrics.finish(event, this.grid.size(), 0);
+  }
+
+  // generates a list of random edges of random weights
+  // EFFECT: updates the edges field of this maze, reweighing the edges already
+  // in it
+  void genEdges() {
+    PhaseEvent event = this.metrics.start(MazeMetrics.GEN_EDGES);
+    IMazeGenerator g = this.generator;
+    g.genEdges();
+    this.edges.ensureCapacity(g.edgeCount());
+    for (int i = 0; i < g.edgeCount(); i++) {
+      this.putEdge(this.edges, i, this.vertices.get(g.edgeFrom(i)),
+          this.vertices.get(g.edgeTo(i)), g.edgeWeight(i));
+    }
+    this.truncate(this.edges, g.edgeCount());
+    this.metrics.finish(event, this.grid.size(), g.edgeCount());
+  }
+
+  // EFFECT: makes the i-th edge of the given list go between the given
+  // vertices, reusing the edge already there if there is one; i is at most the
+  // size of the list
+  void putEdge(ArrayList<Edge> list, int i, Vertex from, Vertex to, int weight) {
+    if (i < list.size()) {
+      list.get(i).reset(from, to, weight);
+    }
+    else {
+      list.add(new Edge(from, to, weight));
+    }
+  }
+
+  // EFFECT: removes the edges past the given size from the end of the given list
+  void truncate(ArrayList<Edge> list, int size) {
+    while (list.size() > size) {
+      list.remove(list.size() - 1);
+    }
+  }
+
+  // finds the index of the vertex with the given coordinates,
+  // or -1 if it is outside this maze
+  int indexFinder(int x, int y) {
+    if (this.grid.contains(x, y)) {
+      return this.grid.index(x, y);
+    }
+    else {
+      return -1;
+    }
+  }
+
+  // build a list of the path between the first and last vertex
+  // in this maze
+  // EFFECT: updates the path field of this maze, and indexes the paths of the
+  // maze to find it
+  void buildListofShortest() {
+    PhaseEvent event = this.metrics.start(MazeMetrics.BUILD_SHORTEST);
+    this.paths.build();
+    int length = this.paths.listPath(0, this.vertices.size() - 1);
+    // the edge that enters the last vertex itself is not part of the list
+    for (int i = 1; i < length - 1; i++) {
+      this.putEdge(this.path, i - 1, this.vertices.get(this.paths.path[i - 1]),
+          this.vertices.get(this.paths.path[i]), 0);
+    }
+    this.truncate(this.path, Math.max(0, length - 2));
+    this.metrics.finish(event, this.vertices.size(), this.path.size());
+  }
+
+  // produces an image of the current world state
+  public WorldScene makeScene() {
+
+    if (!this.bfs && !this.dfs && !this.manualMode) {
+      WorldScene background = new WorldScene(500, 500);
+      RectangleImage box1 = new RectangleImage(250, 250, OutlineMode.SOLID, Color.PINK);
+      RectangleImage box2 = new RectangleImage(250, 250, OutlineMode.SOLID, Color.BLUE);
+      RectangleImage box3 = new RectangleImage(500, 250, OutlineMode.SOLID, Color.RED);
+      TextImage dfs = new TextImage("Depth First Search", 20, Color.black);
+      TextImage bfs = new TextImage("Breadth First Search", 20, Color.WHITE);
+      TextImage diy = new TextImage("Play Maze!", 20, Color.WHITE);
+      background.placeImageXY(box1, 125, 125);
+      background.placeImageXY(box2, 375, 125);
+      background.placeImageXY(box3, 250, 375);
+      background.placeImageXY(dfs, 125, 125);
+      background.placeImageXY(bfs, 375, 125);
+      background.placeImageXY(diy, 250, 375);
+      this.placeGeneratorChoices(background);
+      return background;
+    }
+
+    else if (this.gameOver && this.manualMode) {
+      WorldScene background = this.getEmptyScene();
+      TextImage msg = new TextImage("Maze Completed", 30, Color.BLACK);
+      TextImage wrong = new TextImage(this.wrongMoves + " Wrong Moves", 30, Color.RED);
+      background.placeImageXY(msg, 250, 250);
+      background.placeImageXY(wrong, 250, 325);
+      return background;
+    }
+
+    else {
+      WorldScene background = this.getEmptyScene();
+      if (this.manualMode && !this.paint.colorOf(0).equals(Color.red)) {
+        this.recolor(this.vertices.get(0), Color.red);
+      }
+      long start = System.nanoTime();
+      this.renderer.render(this.walls, this.paint);
+      this.animation.recordRender(System.nanoTime() - start);
+      this.renderer.placeOn(background);
+      return background;
+    }
+  }
+
+  // EFFECT: adds a button for every algorithm the maze can be generated with
+  // along the bottom of the given menu, with the one in use highlighted
+  void placeGeneratorChoices(WorldScene menu) {
+    int[] choices = { MazeFile.KRUSKAL, MazeFile.PRIM, MazeFile.BACKTRACKER };
+    for (int i = 0; i < choices.length; i++) {
+      Color col = Color.lightGray;
+      if (choices[i] == this.algorithm) {
+        col = Color.yellow;
+      }
+      menu.placeImageXY(new OverlayImage(
+          new TextImage(MazeFile.ALGORITHMS[choices[i]], 15, Color.black),
+          new RectangleImage(166, 50, OutlineMode.SOLID, col)), 83 + 167 * i, 475);
+    }
+  }
+
+  // EFFECT: updates the world state after the mouse of clicked
+  public void onMouseClicked(Posn pos) {
+    if (!this.bfs && !this.dfs && !this.manualMode) {
+      if (pos.y > 450 && pos.y < 500 && pos.x > 0 && pos.x < 500) {
+        int[] choices = { MazeFile.KRUSKAL, MazeFile.PRIM, MazeFile.BACKTRACKER };
+        this.useGenerator(choices[Math.min(2, pos.x / 167)]);
+      }
+
+      else if (pos.x > 0 && pos.x < 250 && pos.y > 0 && pos.y < 250) {
+        this.dfs = true;
+        this.bfs = false;
+        this.manualMode = false;
+        this.solution = dfs();
+        this.solutionIdx = 0;
+        this.animation.startPhase();
+        this.solveMaze = false;
+        this.found = false;
+      }
+
+      else if (pos.x > 250 && pos.x < 500 && pos.y > 0 && pos.y < 250) {
+        this.dfs = false;
+        this.bfs = true;
+        this.solveMaze = false;
+        this.manualMode = false;
+        this.found = false;
+        this.solution = bfs();
+        this.solutionIdx = 0;
+        this.animation.startPhase();
+      }
+
+      else if (pos.x > 0 && pos.x < 500 && pos.y > 250 && pos.y < 450) {
+        this.dfs = false;
+        this.bfs = false;
+        this.solveMaze = false;
+        this.manualMode = true;
+        this.found = false;
+        this.gameOver = false;
+        this.movesCount = 0;
+        this.wrongMoves = 0;
+        this.solution = bfs();
+        this.solutionIdx = 0;
+        this.animation.startPhase();
+      }
+    }
+  }
+
+  // EFFECT: updates the world state after each tick, knocking down a batch of
+  // walls and then colouring a batch of solution vertices
+  public void onTick() {
+    long start = System.nanoTime();
+    int steps = 0;
+    if (this.currIdxOfE == this.span.size() && !this.solveMaze) {
+      this.solveMaze = true;
+      this.animation.startPhase();
+    }
+
+    if (this.solutionIdx < this.solution.size() && !this.solveMaze) {
+      int end = this.currIdxOfE + this.animation.batch(this.span.size() - this.currIdxOfE);
+      for (; this.currIdxOfE < end; this.currIdxOfE++) {
+        Edge e = this.span.get(this.currIdxOfE);
+        this.walls.open(e.from.label, e.to.label);
+        this.renderer.markDirty(e.from.label);
+        this.renderer.markDirty(e.to.label);
+        steps++;
+      }
+    }
+
+    if (this.paint.colorOf(this.vertices.size() - 1).equals(Color.red)) {
+      for (Edge e : this.path) {
+        this.recolor(e.to, Color.pink);
+      }
+      this.recolor(this.vertices.get(this.vertices.size() - 1), Color.pink);
+      this.recolor(this.vertices.get(0), Color.pink);
+    }
+
+    else if ((this.bfs || this.dfs) && this.solutionIdx < this.solution.size()
+        && this.solveMaze) {
+      int end = this.solutionIdx
+          + this.animation.batch(this.solution.size() - this.solutionIdx);
+      for (; this.solutionIdx < end; this.solutionIdx++) {
+        this.recolor(this.solution.get(this.solutionIdx).to, Color.red);
+        steps++;
+      }
+    }
+    this.animation.record(steps, System.nanoTime() - start);
+  }
+
+  // determines if every step of the animation has been shown
+  boolean isAnimationDone() {
+    return this.solveMaze && this.solutionIdx == this.solution.size();
+  }
+
+  // updates the world state after a key event
+  public void onKeyEvent(String str) {
+    this.moveCamera(str);
+    if (str.equals("r")) {
+      this.regenerate();
+      if (this.gameOver) {
+        this.bfs = false;
+        this.dfs = false;
+        this.manualMode = false;
+        this.gameOver = false;
+      }
+      else {
+        if (this.bfs) {
+          this.solver.worklist = this.solver.queue;
+        }
+        else {
+          this.solver.worklist = this.solver.stack;
+        }
+        this.searchInto(this.vertices.get(0), this.vertices.get(this.vertices.size() - 1),
+            this.solver, this.solution);
+      }
+    }
+
+    if (this.manualMode) {
+      if (this.vPlayable.equals(this.vertices.get(this.vertices.size() - 1))
+      /* this.vertices.get(this.vertices.size() - 1).col.equals(Color.blue) */) {
+        this.gameOver = true;
+      }
+      else {
+        if (str.equals("right")) {
+          this.movePlayer(WallGrid.RIGHT);
+        }
+        else if (str.equals("left")) {
+          this.movePlayer(WallGrid.LEFT);
+        }
+        else if (str.equals("up")) {
+          this.movePlayer(WallGrid.TOP);
+        }
+        else if (str.equals("down")) {
+          this.movePlayer(WallGrid.BOTTOM);
+        }
+        else if (str.equals("h")) {
+          this.showHint();
+        }
+      }
+    }
+
+  }
+
+  // pans and zooms the view with w, a, s, d, + and -, fits the whole maze in
+  // view with 0, and starts or stops following the player with f
+  // EFFECT: updates the camera of this maze's renderer
+  void moveCamera(String str) {
+    Camera camera = this.renderer.camera;
+    if (str.equals("w")) {
+      camera.pan(0, -1);
+    }
+    else if (str.equals("a")) {
+      camera.pan(-1, 0);
+    }
+    else if (str.equals("s")) {
+      camera.pan(0, 1);
+    }
+    else if (str.equals("d")) {
+      camera.pan(1, 0);
+    }
+    else if (str.equals("+") || str.equals("=")) {
+      camera.zoomIn();
+    }
+    else if (str.equals("-")) {
+      camera.zoomOut();
+    }
+    else if (str.equals("0")) {
+      camera.fit();
+    }
+    else if (str.equals("f")) {
+      camera.following = !camera.following;
+    }
+  }
+
+  // builds a new maze from the next seed in place of this one, reusing every
+  // buffer, vertex and edge of this one, so that restarting makes no garbage
+  // EFFECT: moves this maze on to the next seed and rebuilds it
+  void regenerate() {
+    this.nextSeed();
+    this.rebuild();
+  }
+
+  // builds this maze again with its generator as it now stands, reusing every
+  // buffer, vertex and edge
+  // EFFECT: regenerates the passages, span and path of this maze, puts its
+  // walls back up and starts its animation and score over
+  void rebuild() {
+    this.genVertices();
+    this.genEdges();
+    this.buildSpan();
+    this.genOutEdge();
+    this.buildListofShortest();
+    this.toExit.compute();
+    this.topology = null;
+    this.walls.reset();
+    this.paint.reset();
+    this.renderer.markAll();
+    this.animation.startPhase();
+    this.found = false;
+    this.solveMaze = false;
+    this.currIdxOfE = 0;
+    this.solutionIdx = 0;
+    this.movesCount = 0;
+    this.wrongMoves = 0;
+    this.vPlayable = this.vertices.get(0);
+  }
+
+  // moves the player through the given side of its vertex, if there is a
+  // passage there
+  // EFFECT: updates vPlayable, movesCount, wrongMoves and the colours of
+  // both vertices
+  void movePlayer(int side) {
+    int idx = this.passages.neighbor(this.vPlayable.label, side);
+    if (idx >= 0) {
+      Vertex next = this.vertices.get(idx);
+      if (this.toExit.isWrongStep(this.vPlayable.label, idx)) {
+        this.wrongMoves++;
+      }
+      this.recolor(next, Color.blue);
+      this.recolor(this.vPlayable, Color.red);
+      this.vPlayable = next;
+      this.movesCount++;
+      this.renderer.camera.follow(next.x, next.y);
+    }
+  }
+
+  // produces a snapshot of the passages of this maze that other threads can
+  // search while this maze goes on being animated or painted
+  // EFFECT: keeps the snapshot until this maze is rebuilt
+  MazeTopology snapshot() {
+    if (this.topology == null) {
+      this.topology = new MazeTopology(this.passages);
+    }
+    return this.topology;
+  }
+
+  // works out the structure of this maze from a snapshot of it, so it can be
+  // called from any thread
+  MazeStats analyze() {
+    return new MazeAnalyzer(this.snapshot().passages).analyze();
+  }
+
+  // EFFECT: changes the colour of the given vertex, and has its cell redrawn
+  // in the next frame
+  void recolor(Vertex v, Color col) {
+    this.paint.paint(v.label, col);
+    this.renderer.markDirty(v.label);
+  }
+
+  // counts the steps left from the player to the last vertex
+  int distanceRemaining() {
+    return this.toExit.distance(this.vPlayable.label);
+  }
+
+  // shows the player which way to go next
+  // EFFECT: colours the next vertex towards the last vertex yellow
+  void showHint() {
+    int next = this.toExit.hint(this.vPlayable.label);
+    if (next >= 0) {
+      this.recolor(this.vertices.get(next), Color.yellow);
+    }
+  }
+
+  // finds a path between the first and last vertices of this maze
+  // using breadth first search
+  ArrayList<Edge> bfs() {
+    return this.searchHelp(this.vertices.get(0), this.vertices.get(this.vertices.size() - 1),
+        this.solver.queue);
+  }
+
+  // finds a path between the first and last vertices of this maze
+  // using depth first search
+  ArrayList<Edge> dfs() {
+    return this.searchHelp(this.vertices.get(0), this.vertices.get(this.vertices.size() - 1),
+        this.solver.stack);
+  }
+
+  // finds a path between the two given vertices, and produces the edges it
+  // explored on the way, in order
+  ArrayList<Edge> searchHelp(Vertex from, Vertex to, ICellCollection worklist) {
+    this.solver.worklist = worklist;
+    return this.searchWith(from, to, this.solver);
+  }
+
+  // finds a path between the two given vertices with the given solver, and
+  // produces the edges it explored on the way, in order
+  ArrayList<Edge> searchWith(Vertex from, Vertex to, ISolver solver) {
+    return this.searchInto(from, to, solver, new ArrayList<Edge>());
+  }
+
+  // finds a path between the two given vertices with the given solver, and
+  // fills the given list with the edges it explored on the way, in order
+  // EFFECT: replaces the contents of the given list, reusing its edges
+  ArrayList<Edge> searchInto(Vertex from, Vertex to, ISolver solver, ArrayList<Edge> edgeList) {
+    int count = 0;
+    this.recolor(from, Color.green);
+    this.recolor(to, Color.orange);
+    if (!this.found) {
+      PhaseEvent event = this.metrics.start(MazeMetrics.SEARCH);
+      this.found = solver.solve(from.label, to.label);
+      // every explored vertex a search did not start from was reached by an edge
+      for (int i = 0; i < solver.explored(); i++) {
+        if (solver.reachedFrom(i) >= 0) {
+          this.putEdge(edgeList, count, this.vertices.get(solver.reachedFrom(i)),
+              this.vertices.get(solver.exploredCell(i)), 0);
+          count++;
+        }
+      }
+      this.metrics.finishSearch(event, solver, this.found, count);
+    }
+    this.truncate(edgeList, count);
+    return edgeList;
+  }
+
+}
+
+//Represents a mutable collection of cells
+interface ICellCollection {
+  // Is this collection empty?
+  boolean isEmpty();
+
+  // EFFECT: adds the cell to the collection
+  void add(int cell);
+
+  // Returns the first cell of the collection
+  // EFFECT: removes that first cell
+  int remove();
+
+  // EFFECT: removes every cell from the collection
+  void clear();
+
+  // counts the cells in the collection
+  int size();
+}
+
+//a first-in first-out collection of cells, kept in a ring buffer
+class CellQueue implements ICellCollection {
+  int[] contents;
+  int head;
+  int size;
+
+  CellQueue(int capacity) {
+    this.contents = new int[Math.max(1, capacity)];
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public int remove() {
+    int cell = this.contents[this.head];
+    this.head = (this.head + 1) % this.contents.length;
+    this.size--;
+    return cell;
+  }
+
+  public void add(int cell) {
+    this.contents[(this.head + this.size) % this.contents.length] = cell;
+    this.size++; // NOTE: Different from Stack!
+  }
+
+  public void clear() {
+    this.head = 0;
+    this.size = 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+}
+
+//a last-in first-out collection of cells
+class CellStack implements ICellCollection {
+  int[] contents;
+  int size;
+
+  CellStack(int capacity) {
+    this.contents = new int[Math.max(1, capacity)];
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public int remove() {
+    this.size--;
+    return this.contents[this.size];
+  }
+
+  public void add(int cell) {
+    this.contents[this.size] = cell;
+    this.size++;
+  }
+
+  public void clear() {
+    this.size = 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+}
+
+//a strategy for finding the path between any two cells of a maze
+interface ISolver {
+  // searches for a path from one cell to another, and determines if there is one
+  // EFFECT: records the cells explored and the path found
+  boolean solve(int from, int to);
+
+  // counts the cells the last search explored
+  int explored();
+
+  // produces the i-th cell the last search explored
+  int exploredCell(int i);
+
+  // produces the cell the i-th explored cell was reached from, or -1 if the
+  // search started there
+  int reachedFrom(int i);
+
+  // counts the cells on the path found by the last search
+  int pathLength();
+
+  // produces the i-th cell on the path found by the last search
+  int pathCell(int i);
+
+  // counts the most cells the last search had waiting to be explored at once
+  int peakWorklist();
+}
+
+//a solver that keeps its results in buffers made once for the size of the maze
+abstract class ASolver implements ISolver {
+  WallGrid passages;
+  // the cell each reached cell was first reached from, or -1 for a start
+  int[] parents;
+  // the cells of the last search, in the order they were explored
+  int[] order;
+  int explored;
+  // the cells from the start to the target of the last search
+  int[] path;
+  int pathLength;
+  int peakWorklist;
+
+  ASolver(WallGrid passages) {
+    int size = passages.grid.size();
+    this.passages = passages;
+    this.parents = new int[size];
+    this.order = new int[size];
+    this.path = new int[size];
+  }
+
+  public int explored() {
+    return this.explored;
+  }
+
+  public int exploredCell(int i) {
+    return this.order[i];
+  }
+
+  public int reachedFrom(int i) {
+    return this.parents[this.order[i]];
+  }
+
+  public int pathLength() {
+    return this.pathLength;
+  }
+
+  public int pathCell(int i) {
+    return this.path[i];
+  }
+
+  public int peakWorklist() {
+    return this.peakWorklist;
+  }
+
+  // EFFECT: remembers the given number of waiting cells if it is the most so far
+  void notePeak(int waiting) {
+    this.peakWorklist = Math.max(this.peakWorklist, waiting);
+  }
+
+  // EFFECT: adds the given cell to the cells explored by this search
+  void explore(int cell) {
+    this.order[this.explored] = cell;
+    this.explored++;
+  }
+
+  // EFFECT: fills in the path from the start of the last search to the given cell
+  void tracePath(int to) {
+    int length = 0;
+    for (int cell = to; cell >= 0; cell = this.parents[cell]) {
+      length++;
+    }
+    this.pathLength = length;
+    for (int cell = to; cell >= 0; cell = this.parents[cell]) {
+      length--;
+      this.path[length] = cell;
+    }
+  }
+}
+
+//searches the passages of a maze breadth or depth first, depending on whether
+//its worklist is a queue or a stack
+class MazeSolver extends ASolver {
+  CellQueue queue;
+  CellStack stack;
+  ICellCollection worklist;
+  BitSet seen;
+
+  MazeSolver(WallGrid passages) {
+    super(passages);
+    int size = passages.grid.size();
+    this.queue = new CellQueue(size);
+    this.stack = new CellStack(size);
+    this.worklist = this.queue;
+    this.seen = new BitSet(size);
+  }
+
+  // searches from one cell to another with this solver's worklist
+  public boolean solve(int from, int to) {
+    return this.solve(from, to, this.worklist);
+  }
+
+  // searches from one cell to another, exploring cells in the order the given
+  // worklist hands them out, and determines if the target was reached
+  // EFFECT: records the cells explored, and the path if there is one
+  boolean solve(int from, int to, ICellCollection worklist) {
+    this.seen.clear();
+    worklist.clear();
+    this.explored = 0;
+    this.pathLength = 0;
+    this.peakWorklist = 0;
+
+    // cells are marked as seen when they are added, so none is added twice
+    worklist.add(from);
+    this.seen.set(from);
+    this.parents[from] = -1;
+    boolean found = false;
+    while (!found && !worklist.isEmpty()) {
+      this.notePeak(worklist.size());
+      int next = worklist.remove();
+      this.explore(next);
+      if (next == to) {
+        found = true;
+      }
+      else {
+        for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+          int other = this.passages.neighbor(next, side);
+          if (other >= 0 && !this.seen.get(other)) {
+            this.seen.set(other);
+            this.parents[other] = next;
+            worklist.add(other);
+          }
+        }
+      }
+    }
+
+    if (found) {
+      this.tracePath(to);
+    }
+    return found;
+  }
+}
+
+//a min-heap of cells keyed by a priority, which also knows where each cell is
+//in the heap so that its priority can be lowered in place
+class IndexedMinHeap {
+  int[] heap;
+  int size;
+  // the position of every cell in the heap, or -1 if it is not in it
+  int[] positions;
+  long[] keys;
+
+  IndexedMinHeap(int capacity) {
+    this.heap = new int[capacity];
+    this.positions = new int[capacity];
+    this.keys = new long[capacity];
+    Arrays.fill(this.positions, -1);
+  }
+
+  // Is this heap empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // determines if the given cell is in this heap
+  boolean contains(int cell) {
+    return this.positions[cell] >= 0;
+  }
+
+  // EFFECT: adds the cell with the given key, or lowers its key to the given
+  // one if it is already in this heap with a higher key
+  void push(int cell, long key) {
+    if (!this.contains(cell)) {
+      this.heap[this.size] = cell;
+      this.positions[cell] = this.size;
+      this.keys[cell] = key;
+      this.size++;
+      this.siftUp(this.size - 1);
+    }
+    else if (key < this.keys[cell]) {
+      this.keys[cell] = key;
+      this.siftUp(this.positions[cell]);
+    }
+  }
+
+  // produces the cell with the smallest key
+  // EFFECT: removes that cell from this heap
+  int pop() {
+    int top = this.heap[0];
+    this.size--;
+    this.positions[top] = -1;
+    if (this.size > 0) {
+      this.heap[0] = this.heap[this.size];
+      this.positions[this.heap[0]] = 0;
+      this.siftDown(0);
+    }
+    return top;
+  }
+
+  // EFFECT: removes every cell from this heap
+  void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.positions[this.heap[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  // EFFECT: moves the cell at the given position up until its parent's key is
+  // no bigger than its own
+  void siftUp(int pos) {
+    int cell = this.heap[pos];
+    while (pos > 0 && this.keys[this.heap[(pos - 1) / 2]] > this.keys[cell]) {
+      this.place(this.heap[(pos - 1) / 2], pos);
+      pos = (pos - 1) / 2;
+    }
+    this.place(cell, pos);
+  }
+
+  // EFFECT: moves the cell at the given position down until neither of its
+  // children has a smaller key
+  void siftDown(int pos) {
+    int cell = this.heap[pos];
+    boolean settled = false;
+    while (!settled) {
+      int child = 2 * pos + 1;
+      if (child + 1 < this.size && this.keys[this.heap[child + 1]] < this.keys[this.heap[child]]) {
+        child++;
+      }
+      if (child < this.size && this.keys[this.heap[child]] < this.keys[cell]) {
+        this.place(this.heap[child], pos);
+        pos = child;
+      }
+      else {
+        settled = true;
+      }
+    }
+    this.place(cell, pos);
+  }
+
+  // EFFECT: puts the given cell at the given position of the heap
+  void place(int cell, int pos) {
+    this.heap[pos] = cell;
+    this.positions[cell] = pos;
+  }
+}
+
+//searches the passages of a maze with A*, always exploring the cell whose
+//distance from the start plus its manhattan distance to the target is least
+class AStarSolver extends ASolver {
+  IndexedMinHeap open;
+  BitSet closed;
+  BitSet reached;
+  int[] dist;
+
+  AStarSolver(WallGrid passages) {
+    super(passages);
+    int size = passages.grid.size();
+    this.open = new IndexedMinHeap(size);
+    this.closed = new BitSet(size);
+    this.reached = new BitSet(size);
+    this.dist = new int[size];
+  }
+
+  // computes the manhattan distance between the two given cells
+  int estimate(int from, int to) {
+    Grid g = this.passages.grid;
+    return Math.abs(g.xOf(from) - g.xOf(to)) + Math.abs(g.yOf(from) - g.yOf(to));
+  }
+
+  // computes the heap key of a cell at the given distance from the start with
+  // the given estimate to the target: ties on the total are broken in favour
+  // of the cell closer to the target
+  long key(int dist, int estimate) {
+    return ((long) (dist + estimate) << 32) | estimate;
+  }
+
+  // searches from one cell to another, and determines if the target was reached
+  // EFFECT: records the cells explored, and the path if there is one
+  public boolean solve(int from, int to) {
+    this.open.clear();
+    this.closed.clear();
+    this.reached.clear();
+    this.explored = 0;
+    this.pathLength = 0;
+    this.peakWorklist = 0;
+
+    this.dist[from] = 0;
+    this.parents[from] = -1;
+    this.reached.set(from);
+    this.open.push(from, this.key(0, this.estimate(from, to)));
+    boolean found = false;
+    while (!found && !this.open.isEmpty()) {
+      this.notePeak(this.open.size);
+      int next = this.open.pop();
+      this.closed.set(next);
+      this.explore(next);
+      if (next == to) {
+        found = true;
+      }
+      else {
+        for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+          int other = this.passages.neighbor(next, side);
+          int d = this.dist[next] + 1;
+          if (other >= 0 && !this.closed.get(other)
+              && (!this.reached.get(other) || d < this.dist[other])) {
+            this.reached.set(other);
+            this.dist[other] = d;
+            this.parents[other] = next;
+            this.open.push(other, this.key(d, this.estimate(other, to)));
+          }
+        }
+      }
+    }
+
+    if (found) {
+      this.tracePath(to);
+    }
+    return found;
+  }
+}
+
+//searches the passages of a maze breadth first from both ends at once, a
+//whole level at a time from whichever end has the smaller frontier, until the
+//two searches meet
+class BidirectionalSolver extends ASolver {
+  CellQueue forward;
+  CellQueue backward;
+  BitSet seenForward;
+  BitSet seenBackward;
+  // the cell each cell reached by the backward search was reached from
+  int[] parentsBack;
+
+  BidirectionalSolver(WallGrid passages) {
+    super(passages);
+    int size = passages.grid.size();
+    this.forward = new CellQueue(size);
+    this.backward = new CellQueue(size);
+    this.seenForward = new BitSet(size);
+    this.seenBackward = new BitSet(size);
+    this.parentsBack = new int[size];
+  }
+
+  public int reachedFrom(int i) {
+    int cell = this.order[i];
+    if (this.seenForward.get(cell)) {
+      return this.parents[cell];
+    }
+    else {
+      return this.parentsBack[cell];
+    }
+  }
+
+  // searches from one cell to another, and determines if the target was reached
+  // EFFECT: records the cells explored, and the path if there is one
+  public boolean solve(int from, int to) {
+    this.forward.clear();
+    this.backward.clear();
+    this.seenForward.clear();
+    this.seenBackward.clear();
+    this.explored = 0;
+    this.pathLength = 0;
+    this.peakWorklist = 0;
+
+    this.forward.add(from);
+    this.seenForward.set(from);
+    this.parents[from] = -1;
+    this.backward.add(to);
+    this.seenBackward.set(to);
+    this.parentsBack[to] = -1;
+
+    int meet = -1;
+    if (from == to) {
+      meet = from;
+      this.explore(from);
+    }
+    while (meet < 0 && !this.forward.isEmpty() && !this.backward.isEmpty()) {
+      this.notePeak(this.forward.size + this.backward.size);
+      if (this.forward.size <= this.backward.size) {
+        meet = this.expandLevel(this.forward, this.seenForward, this.parents, this.seenBackward);
+      }
+      else {
+        meet = this.expandLevel(this.backward, this.seenBackward, this.parentsBack,
+            this.seenForward);
+      }
+    }
+
+    if (meet >= 0) {
+      this.joinPaths(meet);
+    }
+    return meet >= 0;
+  }
+
+  // explores every cell currently in the given frontier, and produces the first
+  // cell found that the other search has already reached, or -1 if there is none
+  // EFFECT: adds the next level of cells to the frontier
+  int expandLevel(CellQueue frontier, BitSet seen, int[] parents, BitSet other) {
+    int meet = -1;
+    int level = frontier.size;
+    for (int i = 0; i < level && meet < 0; i++) {
+      int next = frontier.remove();
+      this.explore(next);
+      for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM && meet < 0; side = side * 2) {
+        int cell = this.passages.neighbor(next, side);
+        if (cell >= 0 && !seen.get(cell)) {
+          seen.set(cell);
+          parents[cell] = next;
+          frontier.add(cell);
+          if (other.get(cell)) {
+            meet = cell;
+          }
+        }
+      }
+    }
+    return meet;
+  }
+
+  // EFFECT: fills in the path from the start to the meeting cell, and on from
+  // there to the target
+  void joinPaths(int meet) {
+    this.tracePath(meet);
+    for (int cell = this.parentsBack[meet]; cell >= 0; cell = this.parentsBack[cell]) {
+      this.path[this.pathLength] = cell;
+      this.pathLength++;
+    }
+  }
+}
+
+//the distance from every cell of a maze to one target cell, along its passages
+class DistanceField {
+  WallGrid passages;
+  int target;
+  // the number of steps from every cell to the target, or -1 if it cannot
+  // reach the target
+  int[] dist;
+  CellQueue queue;
+
+  DistanceField(WallGrid passages, int target) {
+    this.passages = passages;
+    this.target = target;
+    this.dist = new int[passages.grid.size()];
+    this.queue = new CellQueue(passages.grid.size());
+    this.compute();
+  }
+
+  // EFFECT: measures the distance from every cell to the target, breadth first
+  // outwards from the target
+  void compute() {
+    Arrays.fill(this.dist, -1);
+    this.queue.clear();
+    this.dist[this.target] = 0;
+    this.queue.add(this.target);
+    while (!this.queue.isEmpty()) {
+      int next = this.queue.remove();
+      for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+        int other = this.passages.neighbor(next, side);
+        if (other >= 0 && this.dist[other] < 0) {
+          this.dist[other] = this.dist[next] + 1;
+          this.queue.add(other);
+        }
+      }
+    }
+  }
+
+  // produces the number of steps from the given cell to the target
+  int distance(int cell) {
+    return this.dist[cell];
+  }
+
+  // determines if stepping from one cell to the other, adjacent one takes
+  // a player further from the target
+  boolean isWrongStep(int from, int to) {
+    return this.dist[to] > this.dist[from];
+  }
+
+  // produces the neighbour of the given cell that is one step closer to the
+  // target, or -1 if there is none
+  int hint(int cell) {
+    int next = -1;
+    for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+      int other = this.passages.neighbor(cell, side);
+      if (other >= 0 && this.dist[other] >= 0 && this.dist[other] < this.dist[cell]) {
+        next = other;
+      }
+    }
+    return next;
+  }
+}
+
+//answers questions about the path between any two cells of a perfect maze. The
+//passages of a perfect maze form a tree, so the index roots it at one cell and
+//keeps every cell's parent and depth, along with a jump pointer to an ancestor
+//further up, placed so that any ancestor can be reached in O(log n) jumps. The
+//lowest common ancestor of two cells then gives the distance between them, and
+//the path between them is the path up from each to it. Nothing is indexed
+//until build is called.
+class PathIndex {
+  WallGrid passages;
+  int root;
+  // the cell one step closer to the root, or -1 for the root itself
+  int[] parent;
+  // the number of steps to the root, or -1 if the root cannot be reached
+  int[] depth;
+  // an ancestor further up: if the parent's jump and its jump's jump cover the
+  // same number of steps, the jump of the jump, or otherwise the parent
+  int[] jump;
+  // the cells of the last path listed, from its first cell to its last
+  int[] path;
+  int pathLength;
+  CellQueue queue;
+
+  PathIndex(WallGrid passages, int root) {
+    this.passages = passages;
+    this.root = root;
+    this.parent = new int[passages.grid.size()];
+    this.depth = new int[passages.grid.size()];
+    this.jump = new int[passages.grid.size()];
+    this.path = new int[passages.grid.size()];
+    this.queue = new CellQueue(passages.grid.size());
+  }
+
+  // EFFECT: roots the passages at the root, breadth first so that every cell
+  // comes after its parent, and records the parent, depth and jump of every
+  // cell that can be reached
+  void build() {
+    Arrays.fill(this.depth, -1);
+    this.queue.clear();
+    this.parent[this.root] = -1;
+    this.depth[this.root] = 0;
+    this.jump[this.root] = this.root;
+    this.queue.add(this.root);
+    while (!this.queue.isEmpty()) {
+      int next = this.queue.remove();
+      for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+        int child = this.passages.neighbor(next, side);
+        if (child >= 0 && this.depth[child] < 0) {
+          this.parent[child] = next;
+          this.depth[child] = this.depth[next] + 1;
+          int up = this.jump[next];
+          if (this.depth[next] - this.depth[up] == this.depth[up] - this.depth[this.jump[up]]) {
+            this.jump[child] = this.jump[up];
+          }
+          else {
+            this.jump[child] = next;
+          }
+          this.queue.add(child);
+        }
+      }
+    }
+  }
+
+  // produces the ancestor of the given cell that is the given number of steps
+  // from the root
+  int ancestor(int cell, int depth) {
+    while (this.depth[cell] > depth) {
+      if (this.depth[this.jump[cell]] >= depth) {
+        cell = this.jump[cell];
+      }
+      else {
+        cell = this.parent[cell];
+      }
+    }
+    return cell;
+  }
+
+  // produces the cell closest to the root that is on the path between the two
+  // given cells, or -1 if there is no path between them
+  int meet(int a, int b) {
+    if (this.depth[a] < 0 || this.depth[b] < 0) {
+      return -1;
+    }
+    a = this.ancestor(a, this.depth[b]);
+    b = this.ancestor(b, this.depth[a]);
+    // cells at the same depth have jumps of the same length, so both can
+    // take them together until they would overshoot
+    while (a != b) {
+      if (this.jump[a] != this.jump[b]) {
+        a = this.jump[a];
+        b = this.jump[b];
+      }
+      else {
+        a = this.parent[a];
+        b = this.parent[b];
+      }
+    }
+    return a;
+  }
+
+  // produces the number of steps between the two given cells, or -1 if there
+  // is no path between them
+  int distance(int a, int b) {
+    int meet = this.meet(a, b);
+    if (meet < 0) {
+      return -1;
+    }
+    else {
+      return this.depth[a] + this.depth[b] - 2 * this.depth[meet];
+    }
+  }
+
+  // produces the number of steps between every pair of cells at the same
+  // position in the two given arrays
+  int[] distances(int[] from, int[] to) {
+    int[] result = new int[from.length];
+    for (int i = 0; i < from.length; i++) {
+      result[i] = this.distance(from[i], to[i]);
+    }
+    return result;
+  }
+
+  // lists the cells on the path between the two given cells, both included,
+  // and produces how many there are, or 0 if there is no path between them
+  // EFFECT: updates path and pathLength
+  int listPath(int from, int to) {
+    int meet = this.meet(from, to);
+    if (meet < 0) {
+      this.pathLength = 0;
+      return 0;
+    }
+    int up = this.depth[from] - this.depth[meet];
+    this.pathLength = up + this.depth[to] - this.depth[meet] + 1;
+    for (int i = 0; i <= up; i++) {
+      this.path[i] = from;
+      from = this.parent[from];
+    }
+    // the other half is walked up from the end, so it is written backwards
+    for (int i = this.pathLength - 1; i > up; i--) {
+      this.path[i] = to;
+      to = this.parent[to];
+    }
+    return this.pathLength;
+  }
+}
+
+//an unbounded maze, split into square tiles. Each tile is generated the first
+//time it is needed, from the seed and the coordinates of the tile alone, and is
+//a perfect maze of its own with one door through each of its sides; both tiles
+//along a side pick the same door, so the whole maze is connected. Only the most
+//recently used tiles are kept, so memory stays the same however far it is explored.
+class TiledMaze {
+  // the ids the seeds of tiles, of doors on the right of tiles and of doors
+  // below tiles are split off under
+  static final long TILES = 0;
+  static final long RIGHT_DOORS = 1;
+  static final long BOTTOM_DOORS = 2;
+  int tileSize;
+  Grid tileGrid;
+  SeedTree seeds;
+  TileCache cache;
+  // builds every tile, reusing its buffers
+  KruskalGenerator generator;
+  // the number of tiles generated so far, counting any generated again after
+  // being evicted
+  long generated;
+
+  TiledMaze(long seed, int tileSize, int cacheTiles) {
+    this.tileSize = tileSize;
+    this.tileGrid = new Grid(tileSize, tileSize);
+    this.seeds = new SeedTree(seed);
+    this.cache = new TileCache(cacheTiles);
+    this.generator = new KruskalGenerator(this.tileGrid, this.seeds.random());
+  }
+
+  // computes the coordinate of the tile holding the given cell coordinate
+  int tileOf(long coord) {
+    return (int) Math.floorDiv(coord, (long) this.tileSize);
+  }
+
+  // computes the coordinate of the given cell coordinate inside its tile
+  int inTile(long coord) {
+    return (int) Math.floorMod(coord, (long) this.tileSize);
+  }
+
+  // produces the walls standing around the cell at the given coordinates
+  // EFFECT: generates the tile holding the cell if it is not cached
+  int walls(long x, long y) {
+    WallGrid tile = this.tile(this.tileOf(x), this.tileOf(y));
+    return tile.walls(this.tileGrid.index(this.inTile(x), this.inTile(y)));
+  }
+
+  // determines if there is a passage through the given side of the cell at the
+  // given coordinates
+  boolean canMove(long x, long y, int side) {
+    return (this.walls(x, y) & side) == 0;
+  }
+
+  // produces the tile at the given tile coordinates
+  // EFFECT: generates and caches the tile if it is not cached, evicting the
+  // least recently used tile if the cache is full
+  WallGrid tile(int tx, int ty) {
+    long key = ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+    WallGrid tile = this.cache.get(key);
+    if (tile == null) {
+      tile = this.generateTile(tx, ty);
+      this.cache.put(key, tile);
+    }
+    return tile;
+  }
+
+  // builds the tile at the given tile coordinates, with its four doors
+  WallGrid generateTile(int tx, int ty) {
+    this.generator.rand = this.seeds.child(TILES).child(tx).child(ty).random();
+    this.generator.genEdges();
+    this.generator.buildSpan();
+    WallGrid tile = new WallGrid(this.tileGrid);
+    this.generator.carve(tile);
+    int last = this.tileSize - 1;
+    tile.knockDown(this.tileGrid.index(last, this.door(RIGHT_DOORS, tx, ty)), WallGrid.RIGHT);
+    tile.knockDown(this.tileGrid.index(0, this.door(RIGHT_DOORS, tx - 1, ty)), WallGrid.LEFT);
+    tile.knockDown(this.tileGrid.index(this.door(BOTTOM_DOORS, tx, ty), last), WallGrid.BOTTOM);
+    tile.knockDown(this.tileGrid.index(this.door(BOTTOM_DOORS, tx, ty - 1), 0), WallGrid.TOP);
+    this.generated++;
+    return tile;
+  }
+
+  // computes where along the right or bottom side of the given tile its door is
+  int door(long side, int tx, int ty) {
+    return (int) Math.floorMod(this.seeds.child(side).child(tx).child(ty).seed,
+        (long) this.tileSize);
+  }
+}
+
+//the tiles of a tiled maze that were used most recently, keyed by their packed
+//tile coordinates; the least recently used tile is dropped whenever there are
+//more than the capacity
+class TileCache extends LinkedHashMap<Long, WallGrid> {
+  private static final long serialVersionUID = 1L;
+  int capacity;
+  long evictions;
+
+  TileCache(int capacity) {
+    super(16, 0.75f, true);
+    this.capacity = capacity;
+  }
+
+  // determines if the least recently used tile should be dropped
+  // EFFECT: counts the tiles dropped
+  protected boolean removeEldestEntry(Map.Entry<Long, WallGrid> eldest) {
+    if (this.size() > this.capacity) {
+      this.evictions++;
+      return true;
+    }
+    else {
+      return false;
+    }
+  }
+}
+
+//a player walking through a tiled maze with the arrow keys, with the view kept
+//centred on them
+class TiledMazeWorld extends World {
+  TiledMaze maze;
+  long playerX;
+  long playerY;
+  // the number of cells across and down the view
+  int view;
+  CellRenderer renderer;
+  int movesCount;
+
+  TiledMazeWorld(TiledMaze maze, int view, int gameSize) {
+    this.maze = maze;
+    this.view = view;
+    this.renderer = new CellRenderer(new Grid(view, view), gameSize, gameSize);
+  }
+
+  // opens a window on the endless maze with the seed given on the command
+  // line, or seed 0 if there is none
+  public static void main(String[] args) {
+    long seed = 0;
+    if (args.length > 0) {
+      seed = Long.parseLong(args[0]);
+    }
+    new TiledMazeWorld(new TiledMaze(seed, 16, 64), 25, 500).bigBang(500, 500);
+  }
+
+  // produces the cells around the player, with the player in blue and the cell
+  // they started from in green
+  public WorldScene makeScene() {
+    WorldScene background = this.getEmptyScene();
+    long left = this.playerX - this.view / 2;
+    long top = this.playerY - this.view / 2;
+    for (int vx = 0; vx < this.view; vx++) {
+      for (int vy = 0; vy < this.view; vy++) {
+        long x = left + vx;
+        long y = top + vy;
+        Color col = Color.white;
+        if (x == this.playerX && y == this.playerY) {
+          col = Color.blue;
+        }
+        else if (x == 0 && y == 0) {
+          col = Color.green;
+        }
+        this.renderer.drawCell(this.renderer.grid.index(vx, vy), col, this.maze.walls(x, y));
+      }
+    }
+    this.renderer.placeOn(background);
+    return background;
+  }
+
+  // moves the player with the arrow keys
+  // EFFECT: updates the player's position and movesCount
+  public void onKeyEvent(String str) {
+    if (str.equals("right")) {
+      this.movePlayer(WallGrid.RIGHT, 1, 0);
+    }
+    else if (str.equals("left")) {
+      this.movePlayer(WallGrid.LEFT, -1, 0);
+    }
+    else if (str.equals("up")) {
+      this.movePlayer(WallGrid.TOP, 0, -1);
+    }
+    else if (str.equals("down")) {
+      this.movePlayer(WallGrid.BOTTOM, 0, 1);
+    }
+  }
+
+  // moves the player one cell the given way, through the given side of their
+  // cell, if there is a passage there
+  // EFFECT: updates the player's position and movesCount
+  void movePlayer(int side, int dx, int dy) {
+    if (this.maze.canMove(this.playerX, this.playerY, side)) {
+      this.playerX = this.playerX + dx;
+      this.playerY = this.playerY + dy;
+      this.movesCount++;
+    }
+  }
+}
+
+//receives the rows of a maze one at a time, top to bottom
+interface IRowSink {
+  // EFFECT: takes in the walls of row y, one WallGrid bit set per cell from
+  // left to right; the array is reused for the next row once this returns
+  void acceptRow(int y, byte[] walls);
+}
+
+//writes rows into a WallGrid, so they can be drawn and solved like any other maze
+class WallGridSink implements IRowSink {
+  WallGrid target;
+
+  WallGridSink(WallGrid target) {
+    this.target = target;
+  }
+
+  // EFFECT: copies the walls of the given row into the target grid
+  public void acceptRow(int y, byte[] walls) {
+    for (int x = 0; x < walls.length; x++) {
+      this.target.cells[this.target.grid.index(x, y)] = walls[x];
+    }
+  }
+}
+
+//writes rows to a channel, two cells to a byte with the first cell of each
+//pair in the low four bits
+class ChannelRowSink implements IRowSink {
+  WritableByteChannel out;
+  ByteBuffer buffer;
+
+  ChannelRowSink(WritableByteChannel out, int width) {
+    this.out = out;
+    this.buffer = ByteBuffer.allocate((width + 1) / 2);
+  }
+
+  // EFFECT: packs the given row and writes it to the channel
+  public void acceptRow(int y, byte[] walls) {
+    this.buffer.clear();
+    for (int x = 0; x < walls.length; x = x + 2) {
+      int high = 0;
+      if (x + 1 < walls.length) {
+        high = walls[x + 1] << 4;
+      }
+      this.buffer.put((byte) (walls[x] | high));
+    }
+    this.buffer.flip();
+    try {
+      while (this.buffer.hasRemaining()) {
+        this.out.write(this.buffer);
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
+
+//draws rows as a PNG image written straight to a channel, a strip of pixel
+//rows at a time, so only a few rows of pixels are ever in memory. Every cell
+//is a square of pixels whose top and left edges are shared with the cells
+//above and to the left of it, with a wall drawn wherever one is standing.
+class PngRowSink implements IRowSink {
+  // the fewest pixels across a cell that leave room inside it between its walls
+  static final int MIN_CELL_SIZE = 2;
+  static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+  static final int WALL = 0xFF000000;
+  static final int OPEN = 0xFFFFFFFF;
+  // the most compressed bytes held back before they are written out as a chunk
+  static final int CHUNK = 1 << 16;
+  WritableByteChannel out;
+  int height;
+  // the pixels across every cell, counting one of its walls
+  int cellSize;
+  int pixelWidth;
+  // the pixels of the strip of rows drawn for the current row of cells
+  int[] strip;
+  // one row of the strip as PNG expects it: a filter byte, then red, green and
+  // blue for every pixel
+  byte[] scanline;
+  Deflater deflater;
+  byte[] deflated;
+  int deflatedCount;
+  ByteBuffer buffer;
+  CRC32 crc;
+
+  PngRowSink(WritableByteChannel out, int width, int height, int cellSize) {
+    if (cellSize < PngRowSink.MIN_CELL_SIZE) {
+      throw new IllegalArgumentException("cells must be at least "
+          + PngRowSink.MIN_CELL_SIZE + " pixels across, not " + cellSize);
+    }
+    this.out = out;
+    this.height = height;
+    this.cellSize = cellSize;
+    this.pixelWidth = width * cellSize + 1;
+    this.strip = new int[this.pixelWidth * cellSize];
+    this.scanline = new byte[1 + 3 * this.pixelWidth];
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.deflated = new byte[PngRowSink.CHUNK];
+    this.buffer = ByteBuffer.allocate(12 + PngRowSink.CHUNK);
+    this.crc = new CRC32();
+    ByteBuffer header = ByteBuffer.allocate(13);
+    header.putInt(this.pixelWidth);
+    header.putInt(height * cellSize + 1);
+    // 8 bits per channel, colour, with the default compression, filters and no
+    // interlacing
+    header.put(new byte[] { 8, 2, 0, 0, 0 });
+    this.write(ByteBuffer.wrap(PngRowSink.SIGNATURE));
+    this.writeChunk("IHDR", header.array(), 13);
+  }
+
+  // EFFECT: draws the given row into the strip and compresses it, and after
+  // the last row finishes off the image
+  public void acceptRow(int y, byte[] walls) {
+    int size = this.cellSize;
+    for (int x = 0; x < walls.length; x++) {
+      int left = x * size;
+      // the corner is always drawn, so walls that meet at it join up
+      this.strip[left] = PngRowSink.WALL;
+      this.drawLine(left + 1, size - 1, 1, (walls[x] & WallGrid.TOP) != 0);
+      this.drawLine(this.pixelWidth + left, size - 1, this.pixelWidth,
+          (walls[x] & WallGrid.LEFT) != 0);
+      for (int r = 1; r < size; r++) {
+        Arrays.fill(this.strip, r * this.pixelWidth + left + 1,
+            r * this.pixelWidth + left + size, PngRowSink.OPEN);
+      }
+    }
+    this.strip[this.pixelWidth - 1] = PngRowSink.WALL;
+    this.drawLine(2 * this.pixelWidth - 1, size - 1, this.pixelWidth,
+        (walls[walls.length - 1] & WallGrid.RIGHT) != 0);
+    this.compress(size);
+    if (y == this.height - 1) {
+      for (int x = 0; x < walls.length; x++) {
+        this.strip[x * size] = PngRowSink.WALL;
+        this.drawLine(x * size + 1, size - 1, 1, (walls[x] & WallGrid.BOTTOM) != 0);
+      }
+      this.strip[this.pixelWidth - 1] = PngRowSink.WALL;
+      this.compress(1);
+      this.finish();
+    }
+  }
+
+  // EFFECT: fills the given number of pixels of the strip, starting at the
+  // given one and stepping by the given amount, with a wall or an opening
+  void drawLine(int start, int count, int step, boolean wall) {
+    int colour = PngRowSink.OPEN;
+    if (wall) {
+      colour = PngRowSink.WALL;
+    }
+    for (int i = 0; i < count; i++) {
+      this.strip[start + i * step] = colour;
+    }
+  }
+
+  // EFFECT: compresses the given number of rows from the top of the strip,
+  // writing out a chunk whenever enough has built up
+  void compress(int rows) {
+    for (int r = 0; r < rows; r++) {
+      int start = r * this.pixelWidth;
+      for (int x = 0; x < this.pixelWidth; x++) {
+        int pixel = this.strip[start + x];
+        this.scanline[1 + 3 * x] = (byte) (pixel >> 16);
+        this.scanline[2 + 3 * x] = (byte) (pixel >> 8);
+        this.scanline[3 + 3 * x] = (byte) pixel;
+      }
+      this.deflater.setInput(this.scanline);
+      while (!this.deflater.needsInput()) {
+        this.drain();
+      }
+    }
+  }
+
+  // EFFECT: takes whatever the deflater has ready, writing it out as a chunk
+  // once the buffer is full
+  void drain() {
+    this.deflatedCount = this.deflatedCount + this.deflater.deflate(this.deflated,
+        this.deflatedCount, this.deflated.length - this.deflatedCount);
+    if (this.deflatedCount == this.deflated.length) {
+      this.writeChunk("IDAT", this.deflated, this.deflatedCount);
+      this.deflatedCount = 0;
+    }
+  }
+
+  // EFFECT: writes out the rest of the compressed image and the end of the file
+  void finish() {
+    this.deflater.finish();
+    while (!this.deflater.finished()) {
+      this.drain();
+    }
+    this.writeChunk("IDAT", this.deflated, this.deflatedCount);
+    this.deflatedCount = 0;
+    this.deflater.end();
+    this.writeChunk("IEND", this.deflated, 0);
+  }
+
+  // EFFECT: writes a chunk of the given type holding the given number of bytes
+  // of the given data, followed by its checksum
+  void writeChunk(String type, byte[] data, int length) {
+    byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+    this.crc.reset();
+    this.crc.update(name);
+    this.crc.update(data, 0, length);
+    this.buffer.clear();
+    this.buffer.putInt(length);
+    this.buffer.put(name);
+    this.buffer.put(data, 0, length);
+    this.buffer.putInt((int) this.crc.getValue());
+    this.buffer.flip();
+    this.write(this.buffer);
+  }
+
+  // EFFECT: writes everything left in the given buffer to the channel
+  void write(ByteBuffer bytes) {
+    try {
+      while (bytes.hasRemaining()) {
+        this.out.write(bytes);
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
+
+//draws rows as text written straight to a channel, keeping only the row above
+//in memory. Every cell takes two characters across and two lines down: the
+//corner and top wall above the cell, and its left wall and inside. Walls are
+//drawn with + - | in plain ASCII, or with box drawing characters.
+class TextRowSink implements IRowSink {
+  // the lines that meet at a corner
+  static final int UP = 1;
+  static final int DOWN = 2;
+  static final int LEFT = 4;
+  static final int RIGHT = 8;
+  // the corner to draw for every combination of lines meeting at it
+  static final String ASCII_CORNERS = " +++++++++++++++";
+  static final String BOX_CORNERS = " \u2575\u2577\u2502\u2574\u2518\u2510\u2524"
+      + "\u2576\u2514\u250c\u251c\u2500\u2534\u252c\u253c";
+  Writer out;
+  int width;
+  int height;
+  String corners;
+  char across;
+  char down;
+  // the walls of the row above the current one, or null on the first row
+  byte[] above;
+  char[] line;
+
+  TextRowSink(WritableByteChannel out, int width, int height, boolean box) {
+    this.out = Channels.newWriter(out, StandardCharsets.UTF_8);
+    this.width = width;
+    this.height = height;
+    if (box) {
+      this.corners = TextRowSink.BOX_CORNERS;
+      this.across = '\u2500';
+      this.down = '\u2502';
+    }
+    else {
+      this.corners = TextRowSink.ASCII_CORNERS;
+      this.across = '-';
+      this.down = '|';
+    }
+    this.line = new char[2 * width + 2];
+  }
+
+  // EFFECT: writes the two lines of the given row, and after the last row the
+  // bottom of the maze as well
+  public void acceptRow(int y, byte[] walls) {
+    try {
+      this.writeBetween(this.above, walls);
+      for (int x = 0; x <= this.width; x++) {
+        this.line[2 * x] = ' ';
+        if (this.hasSide(walls, x)) {
+          this.line[2 * x] = this.down;
+        }
+        this.line[2 * x + 1] = ' ';
+      }
+      this.line[2 * this.width + 1] = '\n';
+      this.out.write(this.line);
+      if (y == this.height - 1) {
+        this.writeBetween(walls, null);
+        this.out.flush();
+        this.above = null;
+      }
+      else {
+        if (this.above == null) {
+          this.above = new byte[this.width];
+        }
+        System.arraycopy(walls, 0, this.above, 0, this.width);
+      }
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // EFFECT: writes the line of corners and walls between the two given rows,
+  // either of which can be null above the first row or below the last
+  void writeBetween(byte[] top, byte[] bottom) throws IOException {
+    for (int x = 0; x <= this.width; x++) {
+      int lines = 0;
+      if (top != null && this.hasSide(top, x)) {
+        lines = lines | TextRowSink.UP;
+      }
+      if (bottom != null && this.hasSide(bottom, x)) {
+        lines = lines | TextRowSink.DOWN;
+      }
+      if (x > 0 && this.hasAcross(top, bottom, x - 1)) {
+        lines = lines | TextRowSink.LEFT;
+      }
+      if (x < this.width && this.hasAcross(top, bottom, x)) {
+        lines = lines | TextRowSink.RIGHT;
+        this.line[2 * x + 1] = this.across;
+      }
       else {
-        this.path.add(e);
-        v = e.to;
+        this.line[2 * x + 1] = ' ';
+      }
+      this.line[2 * x] = this.corners.charAt(lines);
+    }
+    this.line[2 * this.width + 1] = '\n';
+    this.out.write(this.line);
+  }
+
+  // determines if there is a wall to the left of the given cell of the given
+  // row, or to the right of its last cell when given the width
+  boolean hasSide(byte[] walls, int x) {
+    if (x < this.width) {
+      return (walls[x] & WallGrid.LEFT) != 0;
+    }
+    else {
+      return (walls[this.width - 1] & WallGrid.RIGHT) != 0;
+    }
+  }
+
+  // determines if there is a wall between the given cells of the two given
+  // rows, either of which can be null above the first row or below the last
+  boolean hasAcross(byte[] top, byte[] bottom, int x) {
+    if (bottom != null) {
+      return (bottom[x] & WallGrid.TOP) != 0;
+    }
+    else {
+      return (top[x] & WallGrid.BOTTOM) != 0;
+    }
+  }
+}
+
+//generates a perfect maze one row at a time using Eller's algorithm, keeping
+//only the sets of the current row in memory
+class EllerGenerator {
+  int width;
+  int height;
+  RandomGenerator rand;
+  // the seeds of the rows, when every row gets a stream of its own
+  SeedTree rows;
+  // the set every cell of the current row belongs to, numbered [0, width)
+  int[] sets;
+  // the walls of the current row
+  byte[] row;
+  // whether each cell of the current row opens into the row below
+  boolean[] down;
+  UnionFind joins;
+  int[] remaining;
+  boolean[] used;
+
+  EllerGenerator(int width, int height, RandomGenerator rand) {
+    this.width = width;
+    this.height = height;
+    this.rand = rand;
+    this.sets = new int[width];
+    this.row = new byte[width];
+    this.down = new boolean[width];
+    this.joins = new UnionFind(width);
+    this.remaining = new int[width];
+    this.used = new boolean[width];
+  }
+
+  // a generator that draws every row from its own stream, split off the given seed
+  EllerGenerator(int width, int height, SeedTree rows) {
+    this(width, height, rows.random());
+    this.rows = rows;
+  }
+
+  // EFFECT: generates every row of the maze in order and hands it to the sink
+  void generate(IRowSink sink) {
+    for (int x = 0; x < this.width; x++) {
+      this.sets[x] = x;
+      this.down[x] = false;
+    }
+    for (int y = 0; y < this.height; y++) {
+      boolean last = y == this.height - 1;
+      if (this.rows != null) {
+        this.rand = this.rows.child(y).random();
+      }
+      this.startRow();
+      this.joinAcross(last);
+      if (!last) {
+        this.dropDown();
+      }
+      sink.acceptRow(y, this.row);
+      if (!last) {
+        this.nextSets();
+      }
+    }
+  }
+
+  // EFFECT: puts up every wall of the current row except the tops of the cells
+  // that the row above opened into
+  void startRow() {
+    for (int x = 0; x < this.width; x++) {
+      this.row[x] = (byte) WallGrid.ALL;
+      if (this.down[x]) {
+        this.row[x] = (byte) (this.row[x] & ~WallGrid.TOP);
+      }
+    }
+  }
+
+  // EFFECT: randomly joins neighbouring cells of different sets in the current
+  // row, or all of them on the last row, and renumbers the joined sets
+  void joinAcross(boolean last) {
+    this.joins.reset();
+    for (int x = 0; x + 1 < this.width; x++) {
+      boolean separate = this.joins.find(this.sets[x]) != this.joins.find(this.sets[x + 1]);
+      if (separate && (last || this.rand.nextBoolean())) {
+        this.joins.union(this.sets[x], this.sets[x + 1]);
+        this.row[x] = (byte) (this.row[x] & ~WallGrid.RIGHT);
+        this.row[x + 1] = (byte) (this.row[x + 1] & ~WallGrid.LEFT);
+      }
+    }
+    for (int x = 0; x < this.width; x++) {
+      this.sets[x] = this.joins.find(this.sets[x]);
+    }
+  }
+
+  // EFFECT: randomly opens cells into the row below, making sure every set
+  // opens at least once so it stays connected to the rest of the maze
+  void dropDown() {
+    Arrays.fill(this.remaining, 0);
+    Arrays.fill(this.used, false);
+    for (int x = 0; x < this.width; x++) {
+      this.remaining[this.sets[x]]++;
+    }
+    for (int x = 0; x < this.width; x++) {
+      int set = this.sets[x];
+      this.remaining[set]--;
+      // the last cell of a set that has not gone down yet has to
+      this.down[x] = this.rand.nextBoolean() || (this.remaining[set] == 0 && !this.used[set]);
+      if (this.down[x]) {
+        this.used[set] = true;
+        this.row[x] = (byte) (this.row[x] & ~WallGrid.BOTTOM);
+      }
+    }
+  }
+
+  // EFFECT: numbers the sets of the next row: cells opened into from above keep
+  // their set, and every other cell starts a set of its own
+  void nextSets() {
+    int free = 0;
+    for (int x = 0; x < this.width; x++) {
+      if (!this.down[x]) {
+        while (this.used[free]) {
+          free++;
+        }
+        this.sets[x] = free;
+        this.used[free] = true;
+      }
+    }
+  }
+}
+
+//a strategy for building the spanning tree of a perfect maze on a grid. The
+//tree is kept as the indices of the candidate edges it is made of, in the
+//order they were added to it, so it can be carved or animated in that order.
+interface IMazeGenerator {
+  // EFFECT: draws the candidate edges the tree is picked from, if the strategy
+  // picks them in advance, replacing any drawn before
+  void genEdges();
+
+  // EFFECT: builds a new spanning tree of the grid, replacing any built before
+  void buildSpan();
+
+  // counts the candidate edges
+  int edgeCount();
+
+  // produces the first cell of the i-th candidate edge
+  int edgeFrom(int i);
+
+  // produces the second cell of the i-th candidate edge
+  int edgeTo(int i);
+
+  // produces the weight of the i-th candidate edge
+  int edgeWeight(int i);
+
+  // counts the edges of the tree
+  int spanSize();
+
+  // produces the index of the candidate edge that was the i-th added to the tree
+  int spanEdge(int i);
+
+  // counts the edges or cells looked at while building the last tree
+  int examined();
+
+  // EFFECT: makes every tree from now on draw from the given random numbers
+  void reseed(RandomGenerator rand);
+
+  // EFFECT: knocks down the walls along every edge of the tree in the given grid
+  void carve(WallGrid passages);
+
+  // builds a maze, and produces its passages
+  WallGrid generate();
+}
+
+//a generator that keeps its candidate edges in parallel arrays indexed by edge,
+//and its tree as the indices of the edges it kept, without any vertices, edges
+//or display, in buffers made once for the size of the grid
+abstract class AMazeGenerator implements IMazeGenerator {
+  // edges weigh from 0 up to but not including this
+  static final int WEIGHTS = 50;
+  Grid grid;
+  RandomGenerator rand;
+  // the two cells and the weight of every candidate edge
+  int[] from;
+  int[] to;
+  int[] weights;
+  int edgeCount;
+  // the candidate edges in the spanning tree
+  int[] span;
+  int spanSize;
+  // the candidate edges or cells the last tree looked at before it was finished
+  int examined;
+
+  AMazeGenerator(Grid grid, RandomGenerator rand, int candidates) {
+    this.grid = grid;
+    this.rand = rand;
+    this.from = new int[candidates];
+    this.to = new int[candidates];
+    this.weights = new int[candidates];
+    this.span = new int[Math.max(0, grid.size() - 1)];
+  }
+
+  // counts the edges between neighbouring cells of the given grid
+  static int candidateCount(Grid grid) {
+    return (grid.width - 1) * grid.height + grid.width * (grid.height - 1);
+  }
+
+  // produces a generator of the given algorithm, one of the ids maze files
+  // record, for the given grid
+  static IMazeGenerator make(int algorithm, Grid grid, RandomGenerator rand) {
+    if (algorithm == MazeFile.KRUSKAL) {
+      return new KruskalGenerator(grid, rand);
+    }
+    else if (algorithm == MazeFile.PRIM) {
+      return new PrimGenerator(grid, rand);
+    }
+    else if (algorithm == MazeFile.BACKTRACKER) {
+      return new BacktrackerGenerator(grid, rand);
+    }
+    else {
+      throw new IllegalArgumentException("no generator for algorithm " + algorithm);
+    }
+  }
+
+  // builds a maze, and produces its passages
+  public WallGrid generate() {
+    this.genEdges();
+    this.buildSpan();
+    WallGrid passages = new WallGrid(this.grid);
+    this.carve(passages);
+    return passages;
+  }
+
+  // EFFECT: picks a random weight for the edge from every cell to its right and
+  // bottom neighbours, replacing any edges picked before
+  public void genEdges() {
+    this.edgeCount = 0;
+    for (int cell = 0; cell < this.grid.size(); cell++) {
+      int x = this.grid.xOf(cell);
+      int y = this.grid.yOf(cell);
+      if (x + 1 < this.grid.width) {
+        this.addEdge(cell, this.grid.index(x + 1, y));
+      }
+      if (y + 1 < this.grid.height) {
+        this.addEdge(cell, this.grid.index(x, y + 1));
+      }
+    }
+  }
+
+  // EFFECT: adds a candidate edge of random weight between the given cells
+  void addEdge(int from, int to) {
+    this.from[this.edgeCount] = from;
+    this.to[this.edgeCount] = to;
+    this.weights[this.edgeCount] = this.rand.nextInt(AMazeGenerator.WEIGHTS);
+    this.edgeCount++;
+  }
+
+  public int edgeCount() {
+    return this.edgeCount;
+  }
+
+  public int edgeFrom(int i) {
+    return this.from[i];
+  }
+
+  public int edgeTo(int i) {
+    return this.to[i];
+  }
+
+  public int edgeWeight(int i) {
+    return this.weights[i];
+  }
+
+  public int spanSize() {
+    return this.spanSize;
+  }
+
+  public int spanEdge(int i) {
+    return this.span[i];
+  }
+
+  public int examined() {
+    return this.examined;
+  }
+
+  public void reseed(RandomGenerator rand) {
+    this.rand = rand;
+  }
+
+  // EFFECT: knocks down the walls along every edge of the tree in the given grid
+  public void carve(WallGrid passages) {
+    for (int i = 0; i < this.spanSize; i++) {
+      passages.open(this.from[this.span[i]], this.to[this.span[i]]);
+    }
+  }
+}
+
+//builds a maze with Kruskal's algorithm: the candidate edges are sorted by
+//weight, and every edge that joins two separate trees is kept
+class KruskalGenerator extends AMazeGenerator {
+  // buffers for sorting the candidate edges and joining up the cells, which
+  // are reused by every maze built with this generator
+  int[] starts = new int[KruskalGenerator.WEIGHTS + 1];
+  int[] order;
+  UnionFind reps;
+
+  KruskalGenerator(Grid grid, RandomGenerator rand) {
+    super(grid, rand, AMazeGenerator.candidateCount(grid));
+    this.order = new int[this.from.length];
+    this.reps = new UnionFind(grid.size());
+  }
+
+  // EFFECT: keeps the lightest candidate edges that join every cell into a
+  // single tree, replacing any tree built before
+  public void buildSpan() {
+    int[] worklist = new Utils().countingSort(this.weights, this.edgeCount, 0,
+        KruskalGenerator.WEIGHTS - 1, this.starts, this.order);
+    this.spanSize = 0;
+    this.examined = 0;
+    UnionFind reps = this.reps;
+    reps.reset();
+    for (int i = 0; i < this.edgeCount && reps.sets > 1; i++) {
+      if (reps.union(this.from[worklist[i]], this.to[worklist[i]])) {
+        this.span[this.spanSize] = worklist[i];
+        this.spanSize++;
+      }
+      this.examined++;
+    }
+  }
+}
+
+//builds a maze with Prim's algorithm on the same randomly weighted edges as
+//Kruskal's: the tree grows out from the first cell, always by the lightest edge
+//from a cell in it to a cell outside it. The cells next to the tree wait in an
+//indexed heap keyed by the lightest edge into each, which is lowered in place
+//when a lighter one turns up, so the heap never holds more than one entry a cell.
+class PrimGenerator extends AMazeGenerator {
+  IndexedMinHeap frontier;
+  // the lightest candidate edge from the tree into every cell waiting in the heap
+  int[] lightest;
+  BitSet inTree;
+
+  PrimGenerator(Grid grid, RandomGenerator rand) {
+    super(grid, rand, AMazeGenerator.candidateCount(grid));
+    this.frontier = new IndexedMinHeap(grid.size());
+    this.lightest = new int[grid.size()];
+    this.inTree = new BitSet(grid.size());
+  }
+
+  // EFFECT: grows a tree over every cell from the first one, replacing any tree
+  // built before
+  public void buildSpan() {
+    this.spanSize = 0;
+    this.examined = 0;
+    this.frontier.clear();
+    this.inTree.clear();
+    if (this.grid.size() > 0) {
+      this.addToTree(0);
+    }
+    while (!this.frontier.isEmpty()) {
+      int cell = this.frontier.pop();
+      this.span[this.spanSize] = this.lightest[cell];
+      this.spanSize++;
+      this.addToTree(cell);
+    }
+  }
+
+  // EFFECT: adds the given cell to the tree, and offers the edges to each of
+  // its neighbours to the heap
+  void addToTree(int cell) {
+    int x = this.grid.xOf(cell);
+    int y = this.grid.yOf(cell);
+    this.inTree.set(cell);
+    if (x > 0) {
+      this.offer(cell - this.grid.height, this.edgeIndex(cell - this.grid.height, WallGrid.RIGHT));
+    }
+    if (x + 1 < this.grid.width) {
+      this.offer(cell + this.grid.height, this.edgeIndex(cell, WallGrid.RIGHT));
+    }
+    if (y > 0) {
+      this.offer(cell - 1, this.edgeIndex(cell - 1, WallGrid.BOTTOM));
+    }
+    if (y + 1 < this.grid.height) {
+      this.offer(cell + 1, this.edgeIndex(cell, WallGrid.BOTTOM));
+    }
+  }
+
+  // EFFECT: makes the given edge the way into the given cell, if the cell is
+  // not in the tree yet and the edge is lighter than any way in so far
+  void offer(int cell, int edge) {
+    this.examined++;
+    if (!this.inTree.get(cell)
+        && (!this.frontier.contains(cell) || this.weights[edge] < this.frontier.keys[cell])) {
+      this.lightest[cell] = edge;
+      this.frontier.push(cell, this.weights[edge]);
+    }
+  }
+
+  // produces the index genEdges gives the edge from the given cell to its
+  // neighbour on the given side, which is either RIGHT or BOTTOM: every column
+  // but the last has two edges a cell but one for its bottom cell, and the last
+  // column has one a cell but none for its bottom cell
+  int edgeIndex(int cell, int side) {
+    int x = this.grid.xOf(cell);
+    int y = this.grid.yOf(cell);
+    int first = x * (2 * this.grid.height - 1) + y;
+    if (x + 1 < this.grid.width) {
+      first = first + y;
+    }
+    if (side == WallGrid.BOTTOM && x + 1 < this.grid.width) {
+      return first + 1;
+    }
+    else {
+      return first;
+    }
+  }
+}
+
+//builds a maze with the recursive backtracker: a random walk carves into
+//cells it has not visited yet, and backs up along its own trail whenever it
+//gets stuck. The trail is kept on a stack of cells rather than the call stack,
+//so it can run as deep as the grid is big. No edges are drawn in advance; the
+//walk records each edge it carves as a candidate edge of weight 0.
+class BacktrackerGenerator extends AMazeGenerator {
+  CellStack trail;
+  BitSet visited;
+  // the neighbours of the current cell the walk can carve into next
+  int[] choices = new int[4];
+
+  BacktrackerGenerator(Grid grid, RandomGenerator rand) {
+    super(grid, rand, Math.max(0, grid.size() - 1));
+    this.trail = new CellStack(grid.size());
+    this.visited = new BitSet(grid.size());
+  }
+
+  // EFFECT: forgets the edges of the last tree, as every choice is made while
+  // the next tree is built
+  public void genEdges() {
+    this.edgeCount = 0;
+  }
+
+  // EFFECT: walks the grid from the first cell until every cell is visited,
+  // replacing any tree built before
+  public void buildSpan() {
+    this.edgeCount = 0;
+    this.spanSize = 0;
+    this.examined = 0;
+    this.trail.clear();
+    this.visited.clear();
+    if (this.grid.size() > 0) {
+      this.visited.set(0);
+      this.trail.add(0);
+    }
+    while (!this.trail.isEmpty()) {
+      int cell = this.trail.remove();
+      int count = this.unvisited(cell);
+      this.examined++;
+      if (count > 0) {
+        int next = this.choices[this.rand.nextInt(count)];
+        this.from[this.edgeCount] = cell;
+        this.to[this.edgeCount] = next;
+        this.weights[this.edgeCount] = 0;
+        this.span[this.spanSize] = this.edgeCount;
+        this.edgeCount++;
+        this.spanSize++;
+        this.visited.set(next);
+        this.trail.add(cell);
+        this.trail.add(next);
+      }
+    }
+  }
+
+  // counts the neighbours of the given cell that have not been visited
+  // EFFECT: puts them at the front of choices
+  int unvisited(int cell) {
+    int x = this.grid.xOf(cell);
+    int y = this.grid.yOf(cell);
+    int count = 0;
+    if (x > 0 && !this.visited.get(cell - this.grid.height)) {
+      this.choices[count] = cell - this.grid.height;
+      count++;
+    }
+    if (x + 1 < this.grid.width && !this.visited.get(cell + this.grid.height)) {
+      this.choices[count] = cell + this.grid.height;
+      count++;
+    }
+    if (y > 0 && !this.visited.get(cell - 1)) {
+      this.choices[count] = cell - 1;
+      count++;
+    }
+    if (y + 1 < this.grid.height && !this.visited.get(cell + 1)) {
+      this.choices[count] = cell + 1;
+      count++;
+    }
+    return count;
+  }
+}
+
+//generates a perfect maze on several threads: the rows are split into
+//horizontal stripes, each stripe is joined into a spanning tree by its own
+//Kruskal run, and a final union-find pass over the edges between stripes
+//joins the stripes together. That pass opens exactly one door in every seam,
+//so every way from one stripe to the next goes through that single door, and
+//the more stripes there are the more the maze shows its bands.
+class StripedKruskal {
+  Grid grid;
+  long seed;
+  // every row draws the weights of the edges right of and below its cells from
+  // a stream of its own, so the weights do not depend on the stripes
+  SeedTree rows;
+  int stripes;
+  WallGrid walls;
+  // the weight of every edge between stripe s and s + 1, at s * width + x
+  int[] seamWeights;
+
+  StripedKruskal(Grid grid, long seed, int stripes) {
+    this.grid = grid;
+    this.seed = seed;
+    this.rows = new SeedTree(seed);
+    this.stripes = Math.max(1, Math.min(stripes, grid.height));
+    this.walls = new WallGrid(grid);
+    this.seamWeights = new int[(this.stripes - 1) * grid.width];
+  }
+
+  // builds the maze, with the stripes shared out over the given pool; the
+  // result only depends on the seed and the number of stripes, never on the
+  // number of threads
+  // EFFECT: knocks down the walls of the spanning tree in this walls
+  WallGrid generate(ForkJoinPool pool) {
+    pool.invoke(new StripeTask(this, 0, this.stripes));
+    this.joinStripes();
+    return this.walls;
+  }
+
+  // computes the first row of the given stripe
+  int firstRow(int stripe) {
+    return (int) ((long) stripe * this.grid.height / this.stripes);
+  }
+
+  // EFFECT: joins the cells of the given stripe into a spanning tree, knocking
+  // down the walls along it, and picks the weights of the edges below it
+  void buildStripe(int stripe) {
+    int top = this.firstRow(stripe);
+    int rows = this.firstRow(stripe + 1) - top;
+    int width = this.grid.width;
+    // edges are numbered by the cell they leave from, times two, plus one if
+    // they go down rather than right
+    Grid local = new Grid(width, rows);
+    int[] ids = new int[2 * local.size()];
+    int[] weights = new int[ids.length];
+    int count = 0;
+    for (int y = 0; y < rows; y++) {
+      RandomGenerator rand = this.rows.child(top + y).random();
+      for (int x = 0; x < width; x++) {
+        int cell = local.index(x, y);
+        if (x + 1 < width) {
+          ids[count] = cell * 2;
+          weights[count] = rand.nextInt(50);
+          count++;
+        }
+        if (top + y + 1 < this.grid.height) {
+          int weight = rand.nextInt(50);
+          if (y + 1 < rows) {
+            ids[count] = cell * 2 + 1;
+            weights[count] = weight;
+            count++;
+          }
+          else {
+            // the edges below the last row cross into the next stripe
+            this.seamWeights[stripe * width + x] = weight;
+          }
+        }
+      }
+    }
+
+    int[] order = new Utils().sortByWeight(Arrays.copyOf(weights, count));
+    UnionFind reps = new UnionFind(local.size());
+    for (int i = 0; i < order.length && reps.sets > 1; i++) {
+      int from = ids[order[i]] / 2;
+      int to = from + rows;
+      if (ids[order[i]] % 2 == 1) {
+        to = from + 1;
+      }
+      if (reps.union(from, to)) {
+        this.walls.open(this.grid.index(local.xOf(from), top + local.yOf(from)),
+            this.grid.index(local.xOf(to), top + local.yOf(to)));
+      }
+    }
+  }
+
+  // EFFECT: knocks down the lightest edges between stripes that join them all
+  // into one tree; every stripe is already connected, so stripes stand in for
+  // their cells in the union-find
+  void joinStripes() {
+    int width = this.grid.width;
+    int[] order = new Utils().sortByWeight(this.seamWeights);
+    UnionFind reps = new UnionFind(this.stripes);
+    for (int i = 0; i < order.length && reps.sets > 1; i++) {
+      int stripe = order[i] / width;
+      int x = order[i] % width;
+      if (reps.union(stripe, stripe + 1)) {
+        int y = this.firstRow(stripe + 1);
+        this.walls.open(this.grid.index(x, y - 1), this.grid.index(x, y));
       }
+    }
+  }
+}
+
+//builds a range of stripes of a StripedKruskal, splitting the range in half
+//until it is down to a single stripe
+class StripeTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+  StripedKruskal maze;
+  int lo;
+  int hi;
+
+  StripeTask(StripedKruskal maze, int lo, int hi) {
+    this.maze = maze;
+    this.lo = lo;
+    this.hi = hi;
+  }
 
+  // EFFECT: builds the stripes in [lo, hi)
+  protected void compute() {
+    if (this.hi - this.lo == 1) {
+      this.maze.buildStripe(this.lo);
+    }
+    else {
+      int mid = (this.lo + this.hi) / 2;
+      ForkJoinTask.invokeAll(new StripeTask(this.maze, this.lo, mid),
+          new StripeTask(this.maze, mid, this.hi));
     }
   }
+}
 
-  // returns the index of the edge going from the given vertex
-  public int findEdgeinSpan(Vertex v) {
-    for (int i = 0; i < this.span.size(); i++) {
-      Edge e = this.span.get(i);
-      if (e.from.label == (v.label)) {
-        return i;
-      }
-    }
-    return -1; // return -1 if the vertex is not found in the span list
+//generates a range of seeded mazes in parallel without a display, and saves
+//each one to its own maze file. Run with
+//  java BatchGenerator width height count [firstSeed] [directory] [threads] [algorithm]
+//      [stripes]
+//where stripes is the number of stripes each striped maze is split into, one
+//for every thread by default
+class BatchGenerator {
+  Grid grid;
+  long firstSeed;
+  int count;
+  Path directory;
+  // the id of the algorithm every maze is generated with
+  int algorithm;
+  // the stripes every maze is split into, if it is generated striped
+  int stripes;
+
+  BatchGenerator(Grid grid, long firstSeed, int count, Path directory) {
+    this(grid, firstSeed, count, directory, MazeFile.KRUSKAL);
   }
 
-  // produces an image of the current world state
-  public WorldScene makeScene() {
+  BatchGenerator(Grid grid, long firstSeed, int count, Path directory, int algorithm) {
+    this(grid, firstSeed, count, directory, algorithm, 1);
+  }
 
-    if (!this.bfs && !this.dfs && !this.manualMode) {
-      WorldScene background = new WorldScene(500, 500);
-      RectangleImage box1 = new RectangleImage(250, 250, OutlineMode.SOLID, Color.PINK);
-      RectangleImage box2 = new RectangleImage(250, 250, OutlineMode.SOLID, Color.BLUE);
-      RectangleImage box3 = new RectangleImage(500, 250, OutlineMode.SOLID, Color.RED);
-      TextImage dfs = new TextImage("Depth First Search", 20, Color.black);
-      TextImage bfs = new TextImage("Breadth First Search", 20, Color.WHITE);
-      TextImage diy = new TextImage("Play Maze!", 20, Color.WHITE);
-      background.placeImageXY(box1, 125, 125);
-      background.placeImageXY(box2, 375, 125);
-      background.placeImageXY(box3, 250, 375);
-      background.placeImageXY(dfs, 125, 125);
-      background.placeImageXY(bfs, 375, 125);
-      background.placeImageXY(diy, 250, 375);
-      return background;
+  BatchGenerator(Grid grid, long firstSeed, int count, Path directory, int algorithm,
+      int stripes) {
+    this.grid = grid;
+    this.firstSeed = firstSeed;
+    this.count = count;
+    this.directory = directory;
+    this.algorithm = algorithm;
+    this.stripes = stripes;
+  }
+
+  // generates the mazes given on the command line, and reports how fast it went
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println(
+          "usage: BatchGenerator width height count [firstSeed] [directory] [threads]"
+              + " [kruskal|prim|backtracker|striped] [stripes]");
+      System.exit(2);
+    }
+    Grid grid = new Grid(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    int count = Integer.parseInt(args[2]);
+    long firstSeed = 0;
+    if (args.length > 3) {
+      firstSeed = Long.parseLong(args[3]);
+    }
+    Path directory = Path.of("mazes");
+    if (args.length > 4) {
+      directory = Path.of(args[4]);
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 5) {
+      threads = Integer.parseInt(args[5]);
+    }
+    int algorithm = MazeFile.KRUSKAL;
+    if (args.length > 6) {
+      algorithm = BatchGenerator.algorithmOf(args[6]);
+    }
+    int stripes = threads;
+    if (args.length > 7) {
+      stripes = Integer.parseInt(args[7]);
     }
+    Files.createDirectories(directory);
 
-    else if (this.gameOver && this.manualMode) {
-      WorldScene background = this.getEmptyScene();
-      TextImage msg = new TextImage("Maze Completed", 30, Color.BLACK);
-      TextImage wrong = new TextImage(this.movesCount - (this.path.size() + 1) + " Wrong Moves", 30,
-          Color.RED);
-      background.placeImageXY(msg, 250, 250);
-      background.placeImageXY(wrong, 250, 325);
-      return background;
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long start = System.nanoTime();
+    new BatchGenerator(grid, firstSeed, count, directory, algorithm, stripes).generate(pool);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    pool.shutdown();
+    System.out.printf("%d %s mazes of %dx%d in %.3f s on %d threads%n", count,
+        MazeFile.ALGORITHMS[algorithm], grid.width, grid.height, seconds, threads);
+    System.out.printf("%.1f mazes/s, %.0f cells/s%n", count / seconds,
+        (double) count * grid.size() / seconds);
+  }
+
+  // produces the id of the algorithm with the given name, or exits with an
+  // error if it is not one a batch can generate with
+  static int algorithmOf(String name) {
+    int algorithm = Arrays.asList(MazeFile.ALGORITHMS).indexOf(name);
+    if (algorithm != MazeFile.KRUSKAL && algorithm != MazeFile.PRIM
+        && algorithm != MazeFile.BACKTRACKER && algorithm != MazeFile.STRIPED) {
+      System.err.println("unknown algorithm " + name);
+      System.exit(2);
     }
+    return algorithm;
+  }
 
+  // generates the maze with the given seed with the given algorithm; a striped
+  // maze is split into the given number of stripes, which are shared out over
+  // the pool of the task this runs in, or the common pool outside of one
+  static WallGrid build(int algorithm, Grid grid, long seed, int stripes) {
+    if (algorithm == MazeFile.STRIPED) {
+      ForkJoinPool pool = ForkJoinPool.commonPool();
+      if (ForkJoinTask.inForkJoinPool()) {
+        pool = ForkJoinTask.getPool();
+      }
+      return new StripedKruskal(grid, seed, stripes).generate(pool);
+    }
     else {
-      WorldScene background = this.getEmptyScene();
-      int bWidth = this.gameSize / this.width;
-      int bHeight = this.gameSize / this.height;
+      return AMazeGenerator.make(algorithm, grid, new SeedTree(seed).random()).generate();
+    }
+  }
 
-      for (Vertex v : this.vertices) {
-        background.placeImageXY(v.drawWalls(bWidth, bHeight, Color.black),
-            (bWidth * v.x) + (bWidth / 2), (bHeight * v.y) + (bHeight / 2));
-      }
+  // produces the file the maze with the given seed is saved to
+  Path pathOf(long seed) {
+    return this.directory.resolve("maze-" + seed + ".maze");
+  }
 
-      if (this.manualMode) {
-        Vertex currVer = this.vertices.get(0);
-        currVer.col = Color.red;
-      }
+  // EFFECT: generates and saves every maze, shared out over the given pool
+  void generate(ForkJoinPool pool) {
+    pool.invoke(new BatchTask(this, 0, this.count));
+  }
 
-      return background;
+  // EFFECT: generates the maze with the given seed, and saves it
+  void generateOne(long seed) {
+    WallGrid passages = BatchGenerator.build(this.algorithm, this.grid, seed, this.stripes);
+    try {
+      MazeFile.save(this.pathOf(seed), passages, seed, this.algorithm);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
+}
 
-  // EFFECT: updates the world state after the mouse of clicked
-  public void onMouseClicked(Posn pos) {
-    if (!this.bfs && !this.dfs && !this.manualMode) {
-      if (pos.x > 0 && pos.x < 250 && pos.y > 0 && pos.y < 250) {
-        this.dfs = true;
-        this.bfs = false;
-        this.manualMode = false;
-        this.solution = dfs();
-        this.solveMaze = false;
-        this.found = false;
-        new Maze(this.width, this.height, this.dfs, this.bfs, this.manualMode);
-      }
+//generates a range of the mazes of a BatchGenerator, splitting the range in
+//half until it is down to a single maze
+class BatchTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+  BatchGenerator batch;
+  int lo;
+  int hi;
 
-      else if (pos.x > 250 && pos.x < 500 && pos.y > 0 && pos.y < 250) {
-        this.dfs = false;
-        this.bfs = true;
-        this.solveMaze = false;
-        this.manualMode = false;
-        this.found = false;
-        this.solution = bfs();
-        new Maze(this.width, this.height, this.dfs, this.bfs, this.manualMode);
-      }
+  BatchTask(BatchGenerator batch, int lo, int hi) {
+    this.batch = batch;
+    this.lo = lo;
+    this.hi = hi;
+  }
 
-      else if (pos.x > 0 && pos.x < 500 && pos.y > 250 && pos.y < 500) {
-        this.dfs = false;
-        this.bfs = false;
-        this.solveMaze = false;
-        this.manualMode = true;
-        this.found = false;
-        this.gameOver = false;
-        this.movesCount = 0;
-        this.solution = bfs();
-        new Maze(this.width, this.height, this.dfs, this.bfs, this.manualMode);
-      }
+  // EFFECT: generates the mazes in [lo, hi)
+  protected void compute() {
+    if (this.hi - this.lo == 1) {
+      this.batch.generateOne(this.batch.firstSeed + this.lo);
+    }
+    else if (this.hi - this.lo > 1) {
+      int mid = (this.lo + this.hi) / 2;
+      ForkJoinTask.invokeAll(new BatchTask(this.batch, this.lo, mid),
+          new BatchTask(this.batch, mid, this.hi));
     }
   }
+}
 
-  // EFFECT: updates the world state after each tick
-  public void onTick() {
-    if (this.currIdxOfE == this.span.size()) {
-      this.solveMaze = true;
+//the structure of a maze, worked out from its passages alone
+class MazeStats {
+  // the number of cells with no passages out of them, one, and so on up to four
+  long[] degrees = new long[5];
+  // the number of cells along the solution with no passages leading off it,
+  // one, or two
+  long[] branches = new long[3];
+  // the most steps along a corridor, between two cells that are not simply on
+  // the way through from one passage to another
+  int longestCorridor;
+  // the steps from the first cell to the last, or -1 if there is no way through
+  int solutionLength;
+  // the steps between the two cells furthest apart
+  int diameter;
+
+  // counts the cells with only one passage
+  long deadEnds() {
+    return this.degrees[1];
+  }
+
+  // counts the cells where three or four passages meet
+  long junctions() {
+    return this.degrees[3] + this.degrees[4];
+  }
+
+  // adds in the counts of another part of the same maze, and produces these stats
+  // EFFECT: adds the other histograms to these, and keeps the longer corridor
+  MazeStats combine(MazeStats other) {
+    for (int i = 0; i < this.degrees.length; i++) {
+      this.degrees[i] = this.degrees[i] + other.degrees[i];
     }
+    this.longestCorridor = Math.max(this.longestCorridor, other.longestCorridor);
+    return this;
+  }
+}
 
-    if (this.solution.size() > 0 && !this.solveMaze) {
-      Edge e = this.span.get(this.currIdxOfE);
+//works out the structure of a maze whose outer walls are all standing. What
+//only needs a cell and its own passages is counted over stripes of rows on a
+//fork-join pool, and every stripe follows the corridors that start in it even
+//past the end of the stripe, as reading other rows is safe. The solution length
+//and the diameter need the whole maze at once, so they come from breadth first
+//sweeps after the stripes are added up: one from the first cell, which finds
+//the solution and the cell furthest from the first, and one from that cell,
+//whose furthest cell is as far as any two cells of a tree are apart.
+class MazeAnalyzer {
+  // the fewest rows worth a task of their own
+  static final int ROWS = 64;
+  WallGrid passages;
+  // the steps from the start of the last sweep to every cell, or -1 if the
+  // cell cannot be reached
+  int[] dist;
+  // the cell every cell was reached from in the last sweep
+  int[] parent;
+  CellQueue queue;
 
-      Vertex v1 = e.from;
-      Vertex v2 = e.to;
+  MazeAnalyzer(WallGrid passages) {
+    this.passages = passages;
+    this.dist = new int[passages.grid.size()];
+    this.parent = new int[passages.grid.size()];
+    this.queue = new CellQueue(passages.grid.size());
+  }
 
-      if (v1.x > v2.x) {
-        v1.left = false;
-        v2.right = false;
-      }
+  // works out the structure of the maze, counting stripes of rows on the given pool
+  MazeStats analyze(ForkJoinPool pool) {
+    MazeStats stats = pool.invoke(new AnalysisTask(this, 0, this.passages.grid.height));
+    this.measurePaths(stats);
+    return stats;
+  }
 
-      if (v1.x < v2.x) {
-        v1.right = false;
-        v2.left = false;
-      }
+  // works out the structure of the maze on this thread alone
+  MazeStats analyze() {
+    MazeStats stats = this.countRows(0, this.passages.grid.height);
+    this.measurePaths(stats);
+    return stats;
+  }
 
-      if (v1.y > v2.y) {
-        v1.top = false;
-        v2.bottom = false;
+  // counts the passages out of every cell in rows [top, bottom), and follows
+  // every corridor that starts in them
+  MazeStats countRows(int top, int bottom) {
+    MazeStats stats = new MazeStats();
+    Grid grid = this.passages.grid;
+    for (int y = top; y < bottom; y++) {
+      for (int x = 0; x < grid.width; x++) {
+        int cell = grid.index(x, y);
+        int degree = this.degree(cell);
+        stats.degrees[degree]++;
+        if (degree != 2) {
+          for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+            if (!this.passages.hasWall(cell, side)) {
+              stats.longestCorridor = Math.max(stats.longestCorridor,
+                  this.corridor(cell, side));
+            }
+          }
+        }
       }
+    }
+    return stats;
+  }
+
+  // counts the passages out of the given cell
+  int degree(int cell) {
+    return 4 - Integer.bitCount(this.passages.walls(cell));
+  }
 
-      if (v1.y < v2.y) {
-        v1.bottom = false;
-        v2.top = false;
+  // follows the corridor out of the given cell through the given side, until
+  // it reaches a cell that is not simply on the way through, and produces the
+  // number of steps it took
+  int corridor(int cell, int side) {
+    int from = cell;
+    int at = this.passages.neighbor(cell, side);
+    int steps = 1;
+    while (this.degree(at) == 2) {
+      int next = -1;
+      for (int s = WallGrid.LEFT; s <= WallGrid.BOTTOM; s = s * 2) {
+        int other = this.passages.neighbor(at, s);
+        if (other >= 0 && other != from) {
+          next = other;
+        }
       }
+      from = at;
+      at = next;
+      steps++;
+    }
+    return steps;
+  }
 
-      this.currIdxOfE++;
+  // EFFECT: records the solution length, the branches off the solution and
+  // the diameter in the given stats
+  void measurePaths(MazeStats stats) {
+    int last = this.passages.grid.size() - 1;
+    int furthest = this.sweep(0);
+    stats.solutionLength = this.dist[last];
+    if (stats.solutionLength >= 0) {
+      for (int cell = last; cell >= 0; cell = this.parent[cell]) {
+        int onPath = 0;
+        if (cell != 0) {
+          onPath++;
+        }
+        if (cell != last) {
+          onPath++;
+        }
+        stats.branches[this.degree(cell) - onPath]++;
+      }
     }
+    stats.diameter = this.dist[this.sweep(furthest)];
+  }
 
-    if (this.vertices.get(this.vertices.size() - 1).col.equals(Color.red)) {
-      for (Edge e : this.path) {
-        e.drawEdge(Color.pink);
+  // searches breadth first from the given cell, and produces the last cell
+  // it reached, which is as far from it as any
+  // EFFECT: updates dist and parent
+  int sweep(int start) {
+    Arrays.fill(this.dist, -1);
+    this.queue.clear();
+    this.dist[start] = 0;
+    this.parent[start] = -1;
+    this.queue.add(start);
+    int cell = start;
+    while (!this.queue.isEmpty()) {
+      cell = this.queue.remove();
+      for (int side = WallGrid.LEFT; side <= WallGrid.BOTTOM; side = side * 2) {
+        int other = this.passages.neighbor(cell, side);
+        if (other >= 0 && this.dist[other] < 0) {
+          this.dist[other] = this.dist[cell] + 1;
+          this.parent[other] = cell;
+          this.queue.add(other);
+        }
       }
-      this.vertices.get(this.vertices.size() - 1).col = Color.pink;
-      this.vertices.get(0).col = Color.pink;
     }
+    return cell;
+  }
+}
+
+//counts the rows [lo, hi) of a maze for a MazeAnalyzer, splitting the rows in
+//half until there are few enough to count on one thread, and adding up the halves
+class AnalysisTask extends RecursiveTask<MazeStats> {
+  private static final long serialVersionUID = 1L;
+  MazeAnalyzer analyzer;
+  int lo;
+  int hi;
 
-    else if ((this.bfs || this.dfs) && this.solution.size() > 0 && this.solveMaze) {
-      Edge e = this.solution.get(0);
-      this.solution.remove(0);
-      e.drawEdge(Color.red);
+  AnalysisTask(MazeAnalyzer analyzer, int lo, int hi) {
+    this.analyzer = analyzer;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // produces the counts of the rows in [lo, hi)
+  protected MazeStats compute() {
+    if (this.hi - this.lo <= MazeAnalyzer.ROWS) {
+      return this.analyzer.countRows(this.lo, this.hi);
+    }
+    else {
+      int mid = (this.lo + this.hi) / 2;
+      AnalysisTask top = new AnalysisTask(this.analyzer, this.lo, mid);
+      top.fork();
+      MazeStats bottom = new AnalysisTask(this.analyzer, mid, this.hi).compute();
+      return top.join().combine(bottom);
     }
   }
+}
 
-  // updates the world state after a key event
-  public void onKeyEvent(String str) {
-    if (str.equals("r") && this.gameOver) {
-      this.vertices = new ArrayList<Vertex>();
-      this.edges = new ArrayList<Edge>();
-      this.span = new ArrayList<Edge>();
-      this.path = new ArrayList<Edge>();
-      this.found = false;
-      this.solveMaze = false;
-      this.currIdxOfE = 0;
-      this.genVertices();
-      this.genEdges();
-      this.buildSpan();
-      this.genOutEdge();
-      this.buildListofShortest();
-      this.bfs = false;
-      this.dfs = false;
-      this.manualMode = false;
-      this.gameOver = false;
-      this.movesCount = 0;
-      this.vPlayable = this.vertices.get(0);
-    }
-
-    else if (str.equals("r") && !this.gameOver) {
-      this.vertices = new ArrayList<Vertex>();
-      this.edges = new ArrayList<Edge>();
-      this.span = new ArrayList<Edge>();
-      this.path = new ArrayList<Edge>();
-      this.found = false;
-      this.solveMaze = false;
-      this.currIdxOfE = 0;
-      this.genVertices();
-      this.genEdges();
-      this.buildSpan();
-      this.genOutEdge();
-      this.buildListofShortest();
-      this.movesCount = 0;
-      this.vPlayable = this.vertices.get(0);
-      if (this.bfs) {
-        this.solution = this.bfs();
-      }
-      else {
-        this.solution = this.dfs();
-      }
+//the structure of many mazes summed up: the least, mean and most of every
+//measure, and the totals of both histograms
+class MazeSummary {
+  LongSummaryStatistics deadEnds = new LongSummaryStatistics();
+  LongSummaryStatistics junctions = new LongSummaryStatistics();
+  LongSummaryStatistics solutionLength = new LongSummaryStatistics();
+  LongSummaryStatistics longestCorridor = new LongSummaryStatistics();
+  LongSummaryStatistics diameter = new LongSummaryStatistics();
+  long[] degrees = new long[5];
+  long[] branches = new long[3];
+
+  // adds in the stats of one more maze, and produces this summary
+  // EFFECT: updates every measure and histogram of this summary
+  MazeSummary add(MazeStats stats) {
+    this.deadEnds.accept(stats.deadEnds());
+    this.junctions.accept(stats.junctions());
+    this.solutionLength.accept(stats.solutionLength);
+    this.longestCorridor.accept(stats.longestCorridor);
+    this.diameter.accept(stats.diameter);
+    this.addAll(this.degrees, stats.degrees);
+    this.addAll(this.branches, stats.branches);
+    return this;
+  }
+
+  // adds in another summary of different mazes, and produces this summary
+  // EFFECT: updates every measure and histogram of this summary
+  MazeSummary combine(MazeSummary other) {
+    this.deadEnds.combine(other.deadEnds);
+    this.junctions.combine(other.junctions);
+    this.solutionLength.combine(other.solutionLength);
+    this.longestCorridor.combine(other.longestCorridor);
+    this.diameter.combine(other.diameter);
+    this.addAll(this.degrees, other.degrees);
+    this.addAll(this.branches, other.branches);
+    return this;
+  }
+
+  // EFFECT: adds every count of the second histogram to the first
+  void addAll(long[] totals, long[] counts) {
+    for (int i = 0; i < totals.length; i++) {
+      totals[i] = totals[i] + counts[i];
     }
+  }
 
-    if (this.manualMode) {
-      if (this.vPlayable.equals(this.vertices.get(this.vertices.size() - 1))
-      /* this.vertices.get(this.vertices.size() - 1).col.equals(Color.blue) */) {
-        this.gameOver = true;
-      }
-      else {
-        if (str.equals("right")) {
-          if (vPlayable.x + 1 < this.width) {
-            Vertex r = this.vertices.get(indexFinder(vPlayable.x + 1, vPlayable.y));
-            Edge e = new Edge(vPlayable, r, this.rand.nextInt(50));
-            if (vPlayable.outEdges.contains(e)) {
-              r.col = Color.blue;
-              vPlayable.col = Color.red;
-              vPlayable = r;
-              this.movesCount++;
+  // produces a table of every measure, and both histograms
+  String report() {
+    StringBuilder result = new StringBuilder();
+    result.append(String.format("%d mazes%n", this.deadEnds.getCount()));
+    result.append(String.format("%-18s %10s %12s %10s%n", "measure", "min", "mean", "max"));
+    this.appendRow(result, "dead ends", this.deadEnds);
+    this.appendRow(result, "junctions", this.junctions);
+    this.appendRow(result, "solution length", this.solutionLength);
+    this.appendRow(result, "longest corridor", this.longestCorridor);
+    this.appendRow(result, "diameter", this.diameter);
+    result.append("cells by passages out:");
+    for (int i = 0; i < this.degrees.length; i++) {
+      result.append(String.format(" %d: %d", i, this.degrees[i]));
+    }
+    result.append(String.format("%nsolution cells by branches off:"));
+    for (int i = 0; i < this.branches.length; i++) {
+      result.append(String.format(" %d: %d", i, this.branches[i]));
+    }
+    result.append(String.format("%n"));
+    return result.toString();
+  }
 
-            }
-          }
-        }
-        else if (str.equals("left")) {
-          if (vPlayable.x - 1 >= 0) {
-            Vertex l = this.vertices.get(indexFinder(vPlayable.x - 1, vPlayable.y));
-            Edge e = new Edge(vPlayable, l, this.rand.nextInt(50));
-            if (vPlayable.outEdges.contains(e)) {
-              l.col = Color.blue;
-              vPlayable.col = Color.red;
-              vPlayable = l;
-              this.movesCount++;
-            }
-          }
-        }
+  // EFFECT: adds a line for the given measure to the given table
+  void appendRow(StringBuilder table, String name, LongSummaryStatistics measure) {
+    table.append(String.format("%-18s %10d %12.2f %10d%n", name, measure.getMin(),
+        measure.getAverage(), measure.getMax()));
+  }
+}
 
-        else if (str.equals("up")) {
-          if (vPlayable.y - 1 >= 0) {
-            Vertex u = this.vertices.get(indexFinder(vPlayable.x, vPlayable.y - 1));
-            Edge e = new Edge(vPlayable, u, this.rand.nextInt(50));
-            if (vPlayable.outEdges.contains(e)) {
-              u.col = Color.blue;
-              vPlayable.col = Color.red;
-              vPlayable = u;
-              this.movesCount++;
-            }
-          }
-        }
-        else if (str.equals("down")) {
-          if (vPlayable.y + 1 < this.height) {
-            Vertex d = this.vertices.get(indexFinder(vPlayable.x, vPlayable.y + 1));
-            Edge e = new Edge(vPlayable, d, this.rand.nextInt(50));
-            if (vPlayable.outEdges.contains(e)) {
-              d.col = Color.blue;
-              vPlayable.col = Color.red;
-              vPlayable = d;
-              this.movesCount++;
-            }
-          }
-        }
-      }
+//generates and analyses a range of seeded mazes in parallel, without a display
+//and without saving them, and sums up their structure. The maze for every seed
+//is the one BatchGenerator saves for it. Run with
+//  java MazeSurvey width height count [firstSeed] [threads] [algorithm] [stripes]
+class MazeSurvey {
+  Grid grid;
+  long firstSeed;
+  int count;
+  int algorithm;
+  // the stripes every maze is split into, if it is generated striped
+  int stripes;
+
+  MazeSurvey(Grid grid, long firstSeed, int count, int algorithm) {
+    this(grid, firstSeed, count, algorithm, 1);
+  }
+
+  MazeSurvey(Grid grid, long firstSeed, int count, int algorithm, int stripes) {
+    this.grid = grid;
+    this.firstSeed = firstSeed;
+    this.count = count;
+    this.algorithm = algorithm;
+    this.stripes = stripes;
+  }
+
+  // surveys the mazes given on the command line, and prints the summary
+  public static void main(String[] args) {
+    if (args.length < 3) {
+      System.err.println("usage: MazeSurvey width height count [firstSeed] [threads]"
+          + " [kruskal|prim|backtracker|striped] [stripes]");
+      System.exit(2);
+    }
+    Grid grid = new Grid(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    int count = Integer.parseInt(args[2]);
+    long firstSeed = 0;
+    if (args.length > 3) {
+      firstSeed = Long.parseLong(args[3]);
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (args.length > 4) {
+      threads = Integer.parseInt(args[4]);
+    }
+    int algorithm = MazeFile.KRUSKAL;
+    if (args.length > 5) {
+      algorithm = BatchGenerator.algorithmOf(args[5]);
+    }
+    int stripes = threads;
+    if (args.length > 6) {
+      stripes = Integer.parseInt(args[6]);
     }
 
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long start = System.nanoTime();
+    MazeSummary summary = new MazeSurvey(grid, firstSeed, count, algorithm, stripes)
+        .survey(pool);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    pool.shutdown();
+    System.out.printf("%s mazes of %dx%d, seeds %d to %d, in %.3f s on %d threads%n",
+        MazeFile.ALGORITHMS[algorithm], grid.width, grid.height, firstSeed,
+        firstSeed + count - 1, seconds, threads);
+    System.out.print(summary.report());
   }
 
-  // finds a path between the first and last vertices of this maze
-  // using breadth first search
-  ArrayList<Edge> bfs() {
-    return this.searchHelp(this.vertices.get(0), this.vertices.get(this.vertices.size() - 1),
-        new Queue<Vertex>());
+  // generates and analyses every maze, shared out over the given pool, and
+  // produces the summary of them all
+  MazeSummary survey(ForkJoinPool pool) {
+    return pool.invoke(new SurveyTask(this, 0, this.count));
   }
 
-  // finds a path between the first and last vertices of this maze
-  // using depth first search
-  ArrayList<Edge> dfs() {
-    return this.searchHelp(this.vertices.get(0), this.vertices.get(this.vertices.size() - 1),
-        new Stack<Vertex>());
+  // generates the maze with the given seed, and produces its structure
+  MazeStats analyzeOne(long seed) {
+    WallGrid passages = BatchGenerator.build(this.algorithm, this.grid, seed, this.stripes);
+    return new MazeAnalyzer(passages).analyze();
   }
+}
 
-  // finds a path between the two given vertices
-  ArrayList<Edge> searchHelp(Vertex from, Vertex to, ICollection<Vertex> worklist) {
-    ArrayList<Edge> edgeList = new ArrayList<Edge>();
-    Deque<Vertex> alreadySeen = new ArrayDeque<Vertex>();
+//surveys a range of the mazes of a MazeSurvey, splitting the range in half
+//until it is down to a single maze, and adding up the summaries of the halves
+class SurveyTask extends RecursiveTask<MazeSummary> {
+  private static final long serialVersionUID = 1L;
+  MazeSurvey survey;
+  int lo;
+  int hi;
 
-    // Initialize the worklist with the from vertex
-    worklist.add(from);
-    from.col = Color.green;
-    to.col = Color.orange;
-    // As long as the worklist isn't empty...
-    while (!worklist.isEmpty() && !this.found) {
-      Vertex next = worklist.remove();
-      if (next.equals(to)) {
-        this.found = true;
+  SurveyTask(MazeSurvey survey, int lo, int hi) {
+    this.survey = survey;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // produces the summary of the mazes in [lo, hi)
+  protected MazeSummary compute() {
+    if (this.hi - this.lo <= 1) {
+      MazeSummary summary = new MazeSummary();
+      if (this.hi > this.lo) {
+        summary.add(this.survey.analyzeOne(this.survey.firstSeed + this.lo));
+      }
+      return summary;
+    }
+    else {
+      int mid = (this.lo + this.hi) / 2;
+      SurveyTask low = new SurveyTask(this.survey, this.lo, mid);
+      low.fork();
+      MazeSummary high = new SurveyTask(this.survey, mid, this.hi).compute();
+      return low.join().combine(high);
+    }
+  }
+}
+
+//represents a maze stored on disk and mapped into memory, so its cells can be
+//read in place without parsing the file. The file starts with a header:
+//  magic "MAZE", version, width, height (ints), seed (long), algorithm (int)
+//and four reserved bytes, followed by the walls row by row, two cells to a
+//byte with the first cell of each pair in the low four bits.
+class MazeFile implements IRowSink {
+  static final int MAGIC = 0x4D415A45;
+  static final int VERSION = 1;
+  static final int HEADER = 32;
+  static final int KRUSKAL = 0;
+  static final int ELLER = 1;
+  static final int STRIPED = 2;
+  static final int PRIM = 3;
+  static final int BACKTRACKER = 4;
+  // the names of the algorithms, indexed by their ids
+  static final String[] ALGORITHMS = { "kruskal", "eller", "striped", "prim", "backtracker" };
+  // the most bytes of rows mapped by a single buffer
+  static final int SEGMENT = 1 << 30;
+
+  int width;
+  int height;
+  long seed;
+  int algorithm;
+  int rowBytes;
+  int rowsPerSegment;
+  MappedByteBuffer[] segments;
+
+  MazeFile(FileChannel channel, FileChannel.MapMode mode, int width, int height, long seed,
+      int algorithm) throws IOException {
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    this.algorithm = algorithm;
+    this.rowBytes = (width + 1) / 2;
+    this.rowsPerSegment = Math.max(1, MazeFile.SEGMENT / Math.max(1, this.rowBytes));
+    int count = (height + this.rowsPerSegment - 1) / this.rowsPerSegment;
+    this.segments = new MappedByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      int rows = Math.min(this.rowsPerSegment, height - i * this.rowsPerSegment);
+      long start = MazeFile.HEADER + (long) i * this.rowsPerSegment * this.rowBytes;
+      this.segments[i] = channel.map(mode, start, (long) rows * this.rowBytes);
+    }
+  }
 
+  // opens the maze file at the given path read-only; any number of processes
+  // can have the same file open at once
+  static MazeFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < MazeFile.HEADER) {
+        throw new IOException(path + " is not a maze file");
       }
-      else if (alreadySeen.contains(next)) {
-        // do nothing: we've already seen this one
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, MazeFile.HEADER);
+      if (header.getInt(0) != MazeFile.MAGIC) {
+        throw new IOException(path + " is not a maze file");
       }
-      else {
-        // add all the neighbors of next to the worklist for further processing
-        for (Edge e : next.outEdges) {
-          edgeList.add(e);
-          worklist.add(e.to);
-        }
-        // add next to alreadySeen, since we're done with it
-        alreadySeen.addFirst(next);
+      if (header.getInt(4) != MazeFile.VERSION) {
+        throw new IOException(path + " has unsupported version " + header.getInt(4));
       }
+      int width = header.getInt(8);
+      int height = header.getInt(12);
+      if (channel.size() < MazeFile.HEADER + (long) height * ((width + 1) / 2)) {
+        throw new IOException(path + " is truncated");
+      }
+      return new MazeFile(channel, FileChannel.MapMode.READ_ONLY, width, height,
+          header.getLong(16), header.getInt(24));
     }
-    // We haven't found the to vertex, and there are no more to try
-    return edgeList;
   }
 
-}
-
-//Represents a mutable collection of items
-interface ICollection<T> {
-  // Is this collection empty?
-  boolean isEmpty();
+  // creates a maze file of the given size at the given path, with every wall
+  // standing, mapped so that cells can be written in place
+  static MazeFile create(Path path, int width, int height, long seed, int algorithm)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, MazeFile.HEADER);
+      header.putInt(0, MazeFile.MAGIC);
+      header.putInt(4, MazeFile.VERSION);
+      header.putInt(8, width);
+      header.putInt(12, height);
+      header.putLong(16, seed);
+      header.putInt(24, algorithm);
+      MazeFile file = new MazeFile(channel, FileChannel.MapMode.READ_WRITE, width, height, seed,
+          algorithm);
+      for (MappedByteBuffer segment : file.segments) {
+        for (int i = 0; i < segment.limit(); i++) {
+          segment.put(i, (byte) 0xFF);
+        }
+      }
+      return file;
+    }
+  }
 
-  // EFFECT: adds the item to the collection
-  void add(T item);
+  // saves the given walls to a new maze file at the given path
+  static MazeFile save(Path path, WallGrid walls, long seed, int algorithm) throws IOException {
+    MazeFile file = MazeFile.create(path, walls.grid.width, walls.grid.height, seed, algorithm);
+    for (int y = 0; y < file.height; y++) {
+      for (int x = 0; x < file.width; x++) {
+        file.setWalls(x, y, walls.walls(walls.grid.index(x, y)));
+      }
+    }
+    file.force();
+    return file;
+  }
 
-  // Returns the first item of the collection
-  // EFFECT: removes that first item
-  T remove();
-}
+  // produces the walls standing around the cell at the given coordinates
+  int walls(int x, int y) {
+    MappedByteBuffer segment = this.segments[y / this.rowsPerSegment];
+    int packed = segment.get((y % this.rowsPerSegment) * this.rowBytes + x / 2);
+    return (packed >> ((x % 2) * 4)) & WallGrid.ALL;
+  }
 
-class Queue<T> implements ICollection<T> {
-  Deque<T> contents;
+  // EFFECT: stores the given walls for the cell at the given coordinates
+  void setWalls(int x, int y, int walls) {
+    MappedByteBuffer segment = this.segments[y / this.rowsPerSegment];
+    int pos = (y % this.rowsPerSegment) * this.rowBytes + x / 2;
+    int shift = (x % 2) * 4;
+    int packed = (segment.get(pos) & ~(WallGrid.ALL << shift)) | ((walls & WallGrid.ALL) << shift);
+    segment.put(pos, (byte) packed);
+  }
 
-  Queue() {
-    this.contents = new ArrayDeque<T>();
+  // EFFECT: stores a row handed over by a streaming generator
+  public void acceptRow(int y, byte[] walls) {
+    for (int x = 0; x < walls.length; x++) {
+      this.setWalls(x, y, walls[x]);
+    }
   }
 
-  public boolean isEmpty() {
-    return this.contents.isEmpty();
+  // EFFECT: writes any changes to the mapped cells out to the file
+  void force() {
+    for (MappedByteBuffer segment : this.segments) {
+      segment.force();
+    }
   }
 
-  public T remove() {
-    return this.contents.removeFirst();
+  // EFFECT: hands every row of this file to the given sink, top to bottom,
+  // without reading more than one row into memory
+  void sendRows(IRowSink sink) {
+    byte[] row = new byte[this.width];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < row.length; x++) {
+        row[x] = (byte) this.walls(x, y);
+      }
+      sink.acceptRow(y, row);
+    }
   }
 
-  public void add(T item) {
-    this.contents.addLast(item); // NOTE: Different from Stack!
+  // copies the walls of this file into a new WallGrid
+  WallGrid toWallGrid() {
+    WallGrid result = new WallGrid(new Grid(this.width, this.height));
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        result.cells[result.grid.index(x, y)] = (byte) this.walls(x, y);
+      }
+    }
+    return result;
   }
 }
 
-class Stack<T> implements ICollection<T> {
-  Deque<T> contents;
+//exports a maze as a PNG image or as text without a display, streaming it a
+//row at a time either from a maze file or straight from Eller's algorithm, so
+//that even the biggest mazes only ever need a few rows in memory
+class MazeExport {
+  static final int CELL_SIZE = 4;
 
-  Stack() {
-    this.contents = new ArrayDeque<T>();
+  // exports the maze given on the command line
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3 || (!args[2].endsWith(".maze") && args.length < 5)) {
+      System.err.println("usage: MazeExport png|ascii|box output input.maze [cellSize]");
+      System.err.println("       MazeExport png|ascii|box output width height seed [cellSize]");
+      System.err.println("where an output of - is standard output");
+      System.exit(2);
+    }
+    int cellSize = MazeExport.cellSize(args, 5);
+    if (args[2].endsWith(".maze")) {
+      cellSize = MazeExport.cellSize(args, 3);
+    }
+    if (cellSize < PngRowSink.MIN_CELL_SIZE) {
+      System.err.println("cellSize must be at least " + PngRowSink.MIN_CELL_SIZE);
+      System.exit(2);
+    }
+    try (WritableByteChannel out = MazeExport.openOutput(args[1])) {
+      if (args[2].endsWith(".maze")) {
+        MazeFile file = MazeFile.open(Path.of(args[2]));
+        file.sendRows(MazeExport.sink(args[0], out, file.width, file.height, cellSize));
+      }
+      else {
+        int width = Integer.parseInt(args[2]);
+        int height = Integer.parseInt(args[3]);
+        SeedTree rows = new SeedTree(Long.parseLong(args[4]));
+        new EllerGenerator(width, height, rows).generate(MazeExport.sink(args[0], out, width,
+            height, cellSize));
+      }
+    }
   }
 
-  public boolean isEmpty() {
-    return this.contents.isEmpty();
+  // produces the cell size given at the given position on the command line,
+  // or the default if there is none
+  static int cellSize(String[] args, int i) {
+    if (args.length > i) {
+      return Integer.parseInt(args[i]);
+    }
+    else {
+      return MazeExport.CELL_SIZE;
+    }
   }
 
-  public T remove() {
-    return this.contents.removeFirst();
+  // opens the given file for writing, or standard output for -
+  static WritableByteChannel openOutput(String name) throws IOException {
+    if (name.equals("-")) {
+      return Channels.newChannel(System.out);
+    }
+    else {
+      return FileChannel.open(Path.of(name), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
   }
 
-  public void add(T item) {
-    this.contents.addFirst(item);
+  // produces a sink that writes a maze of the given size to the given channel
+  // in the given format
+  static IRowSink sink(String format, WritableByteChannel out, int width, int height,
+      int cellSize) {
+    if (format.equals("png")) {
+      return new PngRowSink(out, width, height, cellSize);
+    }
+    else if (format.equals("ascii")) {
+      return new TextRowSink(out, width, height, false);
+    }
+    else if (format.equals("box")) {
+      return new TextRowSink(out, width, height, true);
+    }
+    else {
+      throw new IllegalArgumentException("unknown format " + format);
+    }
   }
 }
 
@@ -894,18 +4590,14 @@ class ExamplesMazes {
     this.e1 = new Edge(this.v1, this.v3, 12);
     this.e2 = new Edge(this.v1, this.v2, 2);
     this.e3 = new Edge(this.v2, this.v4, 3);
-    this.e4 = new Edge(this.v3, this.v4, 5);
-    this.e5 = new Edge(this.v1, this.v2, 42);
-    this.e6 = new Edge(this.v2, this.v1, 12);
-    this.e7 = new Edge(this.v2, this.v4, 2);
-    this.e8 = new Edge(this.v3, this.v4, 12);
-    this.e9 = new Edge(this.v4, this.v2, 25);
-    this.e10 = new Edge(this.v4, this.v3, 22);
-    // initialize out edges
-    this.v1.outEdges = new ArrayList<Edge>(Arrays.asList(e5));
-    this.v2.outEdges = new ArrayList<Edge>(Arrays.asList(e7, e6));
-    this.v3.outEdges = new ArrayList<Edge>(Arrays.asList(e8));
-    this.v4.outEdges = new ArrayList<Edge>(Arrays.asList(e9, e10));
+    this.e4 = new Edge(this.v3, this.v4, 8);
+    // example passages through the maze
+    this.e5 = new Edge(this.v1, this.v2, 0);
+    this.e6 = new Edge(this.v2, this.v1, 0);
+    this.e7 = new Edge(this.v2, this.v4, 0);
+    this.e8 = new Edge(this.v3, this.v4, 0);
+    this.e9 = new Edge(this.v4, this.v2, 0);
+    this.e10 = new Edge(this.v4, this.v3, 0);
     // example list of edges
     this.edges = new ArrayList<Edge>();
     this.edges.add(e1);
@@ -929,7 +4621,7 @@ class ExamplesMazes {
     this.initData();
     t.checkExpect(this.v3.hashCode(), 2001);
     t.checkExpect(this.v4.hashCode(), 3011);
-    t.checkExpect(this.e4.hashCode(), 6025026);
+    t.checkExpect(this.e4.hashCode(), 6025029);
   }
 
   // tests for equals
@@ -967,15 +4659,45 @@ class ExamplesMazes {
   // tests for gen edges
   void testGenEdges(Tester t) {
     this.initData();
-    t.checkExpect(this.maze.edges, this.edges);
+    t.checkExpect(this.maze.edges, this.edges);
+  }
+
+  // tests for merge sort
+  void testMergeSort(Tester t) {
+    this.initData();
+    new Utils().mergeSort(this.edges, new EdgeComp());
+    t.checkExpect(this.edges,
+        new ArrayList<Edge>(Arrays.asList(this.e2, this.e3, this.e4, this.e1)));
+  }
+
+  // tests for sort by weight
+  void testSortByWeight(Tester t) {
+    this.initData();
+    Utils u = new Utils();
+    t.checkExpect(u.sortByWeight(new int[] { 12, 2, 3, 8 }), new int[] { 1, 2, 3, 0 });
+    t.checkExpect(u.sortByWeight(new int[] { 4, 1, 4, 0, 1 }), new int[] { 3, 1, 4, 0, 2 });
+    t.checkExpect(u.sortByWeight(new int[] {}), new int[] {});
+    // a range too wide to count goes through the radix sort
+    t.checkExpect(u.sortByWeight(new int[] { 1 << 30, -5, 7, -(1 << 30), 7 }),
+        new int[] { 3, 1, 2, 4, 0 });
+  }
+
+  // tests for counting sort
+  void testCountingSort(Tester t) {
+    this.initData();
+    t.checkExpect(new Utils().countingSort(new int[] { -1, 3, -1, 2 }, -1, 3),
+        new int[] { 0, 2, 3, 1 });
   }
 
-  // tests for merge sort
-  void testMergeSort(Tester t) {
+  // tests for radix sort
+  void testRadixSort(Tester t) {
     this.initData();
-    new Utils().mergeSort(this.edges, new EdgeComp());
-    t.checkExpect(this.edges,
-        new ArrayList<Edge>(Arrays.asList(this.e2, this.e3, this.e4, this.e1)));
+    Utils u = new Utils();
+    t.checkExpect(u.radixSort(new int[] { 300, 2, -70000, 300, 65536 }),
+        new int[] { 2, 1, 0, 3, 4 });
+    t.checkExpect(u.digit(-1, 24), 0x7F);
+    t.checkExpect(u.digit(0, 24), 0x80);
+    t.checkExpect(u.digit(0x1234, 8), 0x12);
   }
 
   // tests for build span
@@ -989,6 +4711,55 @@ class ExamplesMazes {
     this.initData();
     t.checkExpect(this.maze.indexFinder(0, 0), 0);
     t.checkExpect(this.maze.indexFinder(1, 0), 2);
+    t.checkExpect(this.maze.indexFinder(2, 0), -1);
+    t.checkExpect(this.maze2.indexFinder(13, 7), 267);
+  }
+
+  // tests for grid
+  void testGrid(Tester t) {
+    this.initData();
+    Grid g = new Grid(3, 4);
+    t.checkExpect(g.size(), 12);
+    t.checkExpect(g.index(0, 0), 0);
+    t.checkExpect(g.index(0, 3), 3);
+    t.checkExpect(g.index(2, 1), 9);
+    t.checkExpect(g.xOf(9), 2);
+    t.checkExpect(g.yOf(9), 1);
+    t.checkExpect(g.contains(2, 3), true);
+    t.checkExpect(g.contains(3, 0), false);
+    t.checkExpect(g.contains(0, -1), false);
+  }
+
+  // tests for wall grid
+  void testWallGrid(Tester t) {
+    this.initData();
+    WallGrid w = new WallGrid(new Grid(3, 2));
+    t.checkExpect(w.walls(4), WallGrid.ALL);
+    t.checkExpect(w.side(2, 0), WallGrid.LEFT);
+    t.checkExpect(w.side(2, 4), WallGrid.RIGHT);
+    t.checkExpect(w.side(3, 2), WallGrid.TOP);
+    t.checkExpect(w.side(2, 3), WallGrid.BOTTOM);
+    t.checkExpect(w.opposite(WallGrid.LEFT), WallGrid.RIGHT);
+    t.checkExpect(w.opposite(WallGrid.BOTTOM), WallGrid.TOP);
+    t.checkExpect(w.neighbor(2, WallGrid.RIGHT), -1);
+    w.open(2, 4);
+    w.open(3, 2);
+    t.checkExpect(w.walls(2), WallGrid.LEFT + WallGrid.TOP);
+    t.checkExpect(w.walls(3), WallGrid.ALL - WallGrid.TOP);
+    t.checkExpect(w.walls(4), WallGrid.ALL - WallGrid.LEFT);
+    t.checkExpect(w.hasWall(2, WallGrid.RIGHT), false);
+    t.checkExpect(w.hasWall(2, WallGrid.LEFT), true);
+    t.checkExpect(w.neighbor(2, WallGrid.RIGHT), 4);
+    t.checkExpect(w.neighbor(4, WallGrid.LEFT), 2);
+    t.checkExpect(w.neighbor(2, WallGrid.BOTTOM), 3);
+    t.checkExpect(w.neighbor(3, WallGrid.TOP), 2);
+    w.reset();
+    t.checkExpect(w.walls(2), WallGrid.ALL);
+    // on a single row, the cell before another is its left neighbour
+    WallGrid row = new WallGrid(new Grid(3, 1));
+    t.checkExpect(row.side(1, 0), WallGrid.LEFT);
+    row.open(1, 0);
+    t.checkExpect(row.neighbor(1, WallGrid.LEFT), 0);
   }
 
   // tests for draw block
@@ -1003,32 +4774,16 @@ class ExamplesMazes {
   // tests for draw walls
   void testDrawWalls(Tester t) {
     this.initData();
-    this.v3.top = true;
-    this.v3.bottom = false;
-    this.v3.left = false;
-    this.v3.right = false;
-    this.v2.bottom = true;
-    this.v2.top = false;
-    this.v2.left = false;
-    this.v2.right = false;
-    this.v1.left = true;
-    this.v1.top = false;
-    this.v1.bottom = false;
-    this.v1.right = false;
-    this.v4.right = true;
-    this.v4.top = false;
-    this.v4.left = false;
-    this.v4.bottom = false;
-    t.checkExpect(this.v3.drawWalls(7, 9, Color.WHITE),
+    t.checkExpect(this.v3.drawWalls(7, 9, Color.WHITE, WallGrid.TOP),
         new AboveImage(new LineImage(new Posn(7, 0), Color.WHITE),
             new RectangleImage(7, 9, OutlineMode.SOLID, Color.WHITE)));
-    t.checkExpect(this.v2.drawWalls(3, 6, Color.WHITE),
+    t.checkExpect(this.v2.drawWalls(3, 6, Color.WHITE, WallGrid.BOTTOM),
         new AboveImage(new RectangleImage(3, 6, OutlineMode.SOLID, Color.WHITE),
             new LineImage(new Posn(3, 0), Color.WHITE)));
-    t.checkExpect(this.v1.drawWalls(4, 5, Color.WHITE),
+    t.checkExpect(this.v1.drawWalls(4, 5, Color.WHITE, WallGrid.LEFT),
         new BesideImage(new LineImage(new Posn(0, 5), Color.WHITE),
             new RectangleImage(4, 5, OutlineMode.SOLID, Color.WHITE)));
-    t.checkExpect(this.v4.drawWalls(3, 7, Color.WHITE),
+    t.checkExpect(this.v4.drawWalls(3, 7, Color.WHITE, WallGrid.RIGHT),
         new BesideImage(new RectangleImage(3, 7, OutlineMode.SOLID, Color.WHITE),
             new LineImage(new Posn(0, 7), Color.WHITE)));
   }
@@ -1036,32 +4791,20 @@ class ExamplesMazes {
   // tests for draw walls 2
   void testDrawWalls2(Tester t) {
     this.initData();
-    this.v3.top = true;
-    this.v3.bottom = true;
-    this.v3.left = false;
-    this.v3.right = true;
-    this.v2.bottom = true;
-    this.v2.top = true;
-    this.v2.left = true;
-    this.v2.right = false;
-    this.v1.left = true;
-    this.v1.top = false;
-    this.v1.bottom = true;
-    this.v1.right = true;
-    this.v4.right = true;
-    this.v4.top = true;
-    this.v4.left = true;
-    this.v4.bottom = false;
-    t.checkExpect(this.v3.drawWalls2(7, 9, Color.GREEN),
+    t.checkExpect(this.v3.drawWalls2(7, 9, Color.GREEN,
+        WallGrid.TOP + WallGrid.BOTTOM + WallGrid.RIGHT),
         new BesideImage(new LineImage(new Posn(0, 9), Color.GREEN),
             new RectangleImage(7, 9, OutlineMode.SOLID, Color.WHITE)));
-    t.checkExpect(this.v2.drawWalls2(12, 99, Color.BLACK),
+    t.checkExpect(this.v2.drawWalls2(12, 99, Color.BLACK,
+        WallGrid.BOTTOM + WallGrid.TOP + WallGrid.LEFT),
         new BesideImage(new RectangleImage(12, 99, OutlineMode.SOLID, Color.WHITE),
             new LineImage(new Posn(0, 99), Color.BLACK)));
-    t.checkExpect(this.v1.drawWalls2(3, 2, Color.PINK),
+    t.checkExpect(this.v1.drawWalls2(3, 2, Color.PINK,
+        WallGrid.LEFT + WallGrid.BOTTOM + WallGrid.RIGHT),
         new AboveImage(new LineImage(new Posn(3, 0), Color.PINK),
             new RectangleImage(3, 2, OutlineMode.SOLID, Color.WHITE)));
-    t.checkExpect(this.v4.drawWalls2(5, 2, Color.BLUE),
+    t.checkExpect(this.v4.drawWalls2(5, 2, Color.BLUE,
+        WallGrid.RIGHT + WallGrid.TOP + WallGrid.LEFT),
         new AboveImage(new RectangleImage(5, 2, OutlineMode.SOLID, Color.WHITE),
             new LineImage(new Posn(5, 0), Color.BLUE)));
   }
@@ -1082,6 +4825,12 @@ class ExamplesMazes {
     background.placeImageXY(dfs, 125, 125);
     background.placeImageXY(bfs, 375, 125);
     background.placeImageXY(diy, 250, 375);
+    background.placeImageXY(new OverlayImage(new TextImage("kruskal", 15, Color.black),
+        new RectangleImage(166, 50, OutlineMode.SOLID, Color.yellow)), 83, 475);
+    background.placeImageXY(new OverlayImage(new TextImage("prim", 15, Color.black),
+        new RectangleImage(166, 50, OutlineMode.SOLID, Color.lightGray)), 250, 475);
+    background.placeImageXY(new OverlayImage(new TextImage("backtracker", 15, Color.black),
+        new RectangleImage(166, 50, OutlineMode.SOLID, Color.lightGray)), 417, 475);
     t.checkExpect(this.maze.makeScene(), background);
   }
 
@@ -1094,24 +4843,53 @@ class ExamplesMazes {
   // tests for union and find
   void testUnionFind(Tester t) {
     this.initData();
-    HashMap<Vertex, Vertex> map = new HashMap<Vertex, Vertex>();
-    map.put(this.v2, this.v3);
-    map.put(this.v1, this.v4);
-    map.put(this.v4, this.v2);
-    t.checkExpect(new Utils().find(map, this.v1), this.v4);
-    t.checkExpect(new Utils().find(map, this.v4), this.v2);
-    new Utils().union(map, this.v4, this.v3);
-    new Utils().union(map, this.v2, this.v1);
-    t.checkExpect(map.get(this.v4), this.v3);
-    t.checkExpect(map.get(this.v2), this.v1);
+    UnionFind uf = new UnionFind(5);
+    t.checkExpect(uf.sets, 5);
+    t.checkExpect(uf.find(3), 3);
+    t.checkExpect(uf.union(0, 1), true);
+    t.checkExpect(uf.union(2, 3), true);
+    t.checkExpect(uf.find(1), uf.find(0));
+    t.checkExpect(uf.find(2) == uf.find(0), false);
+    t.checkExpect(uf.union(1, 3), true);
+    t.checkExpect(uf.find(2), uf.find(0));
+    t.checkExpect(uf.union(3, 0), false);
+    t.checkExpect(uf.sets, 2);
+    t.checkExpect(uf.find(4), 4);
+    uf.reset();
+    t.checkExpect(uf.sets, 5);
+    t.checkExpect(uf.find(3), 3);
+  }
+
+  // tests for path halving in find
+  void testFindCompresses(Tester t) {
+    this.initData();
+    UnionFind uf = new UnionFind(4);
+    uf.parent = new int[] { 0, 0, 1, 2 };
+    t.checkExpect(uf.find(3), 0);
+    t.checkExpect(uf.parent, new int[] { 0, 0, 1, 1 });
+  }
+
+  // tests for build span on a larger maze
+  void testBuildSpanIsTree(Tester t) {
+    this.initData();
+    UnionFind uf = new UnionFind(this.maze2.vertices.size());
+    boolean acyclic = true;
+    for (Edge e : this.maze2.span) {
+      acyclic = acyclic && uf.union(e.from.label, e.to.label);
+    }
+    t.checkExpect(this.maze2.span.size(), 399);
+    t.checkExpect(acyclic, true);
+    t.checkExpect(uf.sets, 1);
   }
 
   // tests for search
   void testSearch(Tester t) {
     this.initData();
     int i = 0;
-    ArrayList<Edge> list = new ArrayList<Edge>(Arrays.asList(this.e5, this.e7, this.e6));
-    for (Edge e : this.maze.searchHelp(this.v1, this.v4, new Stack<Vertex>())) {
+    ArrayList<Vertex> vs = this.maze.vertices;
+    ArrayList<Edge> list = new ArrayList<Edge>(Arrays.asList(new Edge(vs.get(0), vs.get(1), 0),
+        new Edge(vs.get(1), vs.get(3), 0)));
+    for (Edge e : this.maze.searchHelp(vs.get(0), vs.get(3), new CellStack(4))) {
       t.checkExpect(list.get(i), e);
       i++;
     }
@@ -1130,6 +4908,1107 @@ class ExamplesMazes {
 
   }
 
+  // tests for the cell queue
+  void testCellQueue(Tester t) {
+    this.initData();
+    CellQueue q = new CellQueue(3);
+    t.checkExpect(q.isEmpty(), true);
+    q.add(4);
+    q.add(7);
+    q.add(1);
+    t.checkExpect(q.remove(), 4);
+    q.add(9);
+    t.checkExpect(q.remove(), 7);
+    t.checkExpect(q.remove(), 1);
+    t.checkExpect(q.remove(), 9);
+    t.checkExpect(q.isEmpty(), true);
+    q.add(2);
+    q.clear();
+    t.checkExpect(q.isEmpty(), true);
+  }
+
+  // tests for the cell stack
+  void testCellStack(Tester t) {
+    this.initData();
+    CellStack st = new CellStack(3);
+    t.checkExpect(st.isEmpty(), true);
+    st.add(4);
+    st.add(7);
+    t.checkExpect(st.remove(), 7);
+    st.add(1);
+    t.checkExpect(st.remove(), 1);
+    t.checkExpect(st.remove(), 4);
+    t.checkExpect(st.isEmpty(), true);
+    st.add(2);
+    st.clear();
+    t.checkExpect(st.isEmpty(), true);
+  }
+
+  // tests for the maze solver
+  void testMazeSolver(Tester t) {
+    this.initData();
+    MazeSolver s = new MazeSolver(this.maze.passages);
+    t.checkExpect(s.solve(0, 3, s.queue), true);
+    t.checkExpect(Arrays.copyOf(s.order, s.explored), new int[] { 0, 1, 3 });
+    t.checkExpect(Arrays.copyOf(s.path, s.pathLength), new int[] { 0, 1, 3 });
+    t.checkExpect(s.solve(2, 0, s.stack), true);
+    t.checkExpect(Arrays.copyOf(s.path, s.pathLength), new int[] { 2, 3, 1, 0 });
+    t.checkExpect(s.solve(1, 1, s.queue), true);
+    t.checkExpect(s.pathLength, 1);
+    // nothing can be reached when every wall is standing
+    MazeSolver walled = new MazeSolver(new WallGrid(new Grid(2, 2)));
+    t.checkExpect(walled.solve(0, 3, walled.queue), false);
+    t.checkExpect(walled.explored, 1);
+    t.checkExpect(walled.pathLength, 0);
+
+    // breadth and depth first find the same path through a perfect maze, and
+    // every step on it goes through an open wall
+    MazeSolver big = this.maze2.solver;
+    big.solve(0, 399, big.queue);
+    int[] bfsPath = Arrays.copyOf(big.path, big.pathLength);
+    int bfsExplored = big.explored;
+    big.solve(0, 399, big.stack);
+    t.checkExpect(Arrays.copyOf(big.path, big.pathLength), bfsPath);
+    t.checkExpect(big.explored <= 400 && bfsExplored <= 400, true);
+    for (int i = 1; i < bfsPath.length; i++) {
+      WallGrid p = this.maze2.passages;
+      t.checkExpect(p.neighbor(bfsPath[i - 1], p.side(bfsPath[i - 1], bfsPath[i])), bfsPath[i]);
+    }
+    t.checkExpect(this.maze2.path.size(), bfsPath.length - 2);
+  }
+
+  // tests for the indexed min heap
+  void testIndexedMinHeap(Tester t) {
+    this.initData();
+    IndexedMinHeap h = new IndexedMinHeap(6);
+    t.checkExpect(h.isEmpty(), true);
+    h.push(3, 30);
+    h.push(1, 10);
+    h.push(5, 50);
+    h.push(2, 20);
+    t.checkExpect(h.contains(5), true);
+    t.checkExpect(h.contains(4), false);
+    h.push(5, 5);
+    h.push(1, 40);
+    t.checkExpect(h.pop(), 5);
+    t.checkExpect(h.contains(5), false);
+    t.checkExpect(h.pop(), 1);
+    t.checkExpect(h.pop(), 2);
+    h.push(0, 1);
+    t.checkExpect(h.pop(), 0);
+    t.checkExpect(h.pop(), 3);
+    t.checkExpect(h.isEmpty(), true);
+    h.push(4, 2);
+    h.clear();
+    t.checkExpect(h.isEmpty(), true);
+    t.checkExpect(h.contains(4), false);
+  }
+
+  // tests for the a* solver
+  void testAStarSolver(Tester t) {
+    this.initData();
+    AStarSolver a = new AStarSolver(this.maze.passages);
+    t.checkExpect(a.estimate(0, 3), 2);
+    t.checkExpect(a.key(1, 1) < a.key(0, 3), true);
+    t.checkExpect(a.key(2, 0) < a.key(1, 1), true);
+    t.checkExpect(a.solve(0, 3), true);
+    t.checkExpect(Arrays.copyOf(a.path, a.pathLength), new int[] { 0, 1, 3 });
+    t.checkExpect(a.reachedFrom(0), -1);
+    t.checkExpect(a.solve(2, 0), true);
+    t.checkExpect(Arrays.copyOf(a.path, a.pathLength), new int[] { 2, 3, 1, 0 });
+    t.checkExpect(new AStarSolver(new WallGrid(new Grid(2, 2))).solve(0, 3), false);
+
+    // a* finds the same path as breadth first search, and never explores a
+    // cell that breadth first search would not
+    WallGrid w = new StripedKruskal(new Grid(60, 60), 11, 1).generate(new ForkJoinPool(1));
+    MazeSolver bfs = new MazeSolver(w);
+    AStarSolver astar = new AStarSolver(w);
+    bfs.solve(65, 3541);
+    astar.solve(65, 3541);
+    t.checkExpect(Arrays.copyOf(astar.path, astar.pathLength),
+        Arrays.copyOf(bfs.path, bfs.pathLength));
+    t.checkExpect(astar.explored <= bfs.explored, true);
+  }
+
+  // tests for the bidirectional solver
+  void testBidirectionalSolver(Tester t) {
+    this.initData();
+    BidirectionalSolver b = new BidirectionalSolver(this.maze.passages);
+    t.checkExpect(b.solve(0, 3), true);
+    t.checkExpect(Arrays.copyOf(b.path, b.pathLength), new int[] { 0, 1, 3 });
+    t.checkExpect(b.solve(2, 0), true);
+    t.checkExpect(Arrays.copyOf(b.path, b.pathLength), new int[] { 2, 3, 1, 0 });
+    t.checkExpect(b.solve(1, 1), true);
+    t.checkExpect(b.pathLength, 1);
+    t.checkExpect(new BidirectionalSolver(new WallGrid(new Grid(2, 2))).solve(0, 3), false);
+
+    WallGrid w = new StripedKruskal(new Grid(60, 60), 11, 1).generate(new ForkJoinPool(1));
+    MazeSolver bfs = new MazeSolver(w);
+    BidirectionalSolver both = new BidirectionalSolver(w);
+    for (int to : new int[] { 3599, 1234, 66 }) {
+      bfs.solve(7, to);
+      both.solve(7, to);
+      t.checkExpect(Arrays.copyOf(both.path, both.pathLength),
+          Arrays.copyOf(bfs.path, bfs.pathLength));
+    }
+  }
+
+  // tests for searching with a given solver
+  void testSearchWith(Tester t) {
+    this.initData();
+    ArrayList<Vertex> vs = this.maze.vertices;
+    // the forward search reaches the target while exploring 1, so the
+    // backward search never explores anything
+    ArrayList<Edge> list = new ArrayList<Edge>(Arrays.asList(new Edge(vs.get(0), vs.get(1), 0)));
+    t.checkExpect(
+        this.maze.searchWith(vs.get(0), vs.get(3), new BidirectionalSolver(this.maze.passages)),
+        list);
+    t.checkExpect(this.maze.found, true);
+    t.checkExpect(this.maze.paint.colorOf(0), Color.green);
+    t.checkExpect(this.maze.paint.colorOf(3), Color.orange);
+    this.maze.found = false;
+    t.checkExpect(this.maze.searchWith(vs.get(0), vs.get(3), new AStarSolver(this.maze.passages)),
+        new ArrayList<Edge>(Arrays.asList(new Edge(vs.get(0), vs.get(1), 0),
+            new Edge(vs.get(1), vs.get(3), 0))));
+  }
+
+  // tests that the path index agrees with searching breadth first
+  void testPathIndex(Tester t) {
+    this.initData();
+    WallGrid passages = this.maze2.passages;
+    PathIndex index = new PathIndex(passages, 0);
+    index.build();
+    boolean agrees = true;
+    for (int target = 0; target < 400; target = target + 37) {
+      DistanceField field = new DistanceField(passages, target);
+      for (int cell = 0; cell < 400; cell++) {
+        agrees = agrees && index.distance(cell, target) == field.distance(cell);
+      }
+    }
+    t.checkExpect(agrees, true);
+    t.checkExpect(index.distance(0, 399), this.maze2.path.size() + 1);
+    t.checkExpect(index.distance(5, 5), 0);
+    t.checkExpect(index.meet(0, 399), 0);
+    t.checkExpect(index.distances(new int[] { 0, 7 }, new int[] { 399, 7 }),
+        new int[] { this.maze2.path.size() + 1, 0 });
+    // any ancestor is reached in a logarithmic number of jumps
+    int deepest = 0;
+    for (int cell = 0; cell < 400; cell++) {
+      if (index.depth[cell] > index.depth[deepest]) {
+        deepest = cell;
+      }
+    }
+    int jumps = 0;
+    for (int cell = deepest; cell != 0; cell = index.jump[cell]) {
+      jumps++;
+    }
+    t.checkExpect(jumps <= 3 * 9, true);
+    t.checkExpect(index.ancestor(deepest, 0), 0);
+    t.checkExpect(index.ancestor(deepest, index.depth[deepest]), deepest);
+  }
+
+  // tests for listing the path between two cells
+  void testListPath(Tester t) {
+    this.initData();
+    PathIndex index = new PathIndex(this.maze2.passages, 0);
+    index.build();
+    t.checkExpect(index.listPath(57, 342), index.distance(57, 342) + 1);
+    t.checkExpect(index.path[0], 57);
+    t.checkExpect(index.path[index.pathLength - 1], 342);
+    boolean connected = true;
+    for (int i = 1; i < index.pathLength; i++) {
+      int side = this.maze2.passages.side(index.path[i - 1], index.path[i]);
+      connected = connected
+          && this.maze2.passages.neighbor(index.path[i - 1], side) == index.path[i];
+    }
+    t.checkExpect(connected, true);
+    t.checkExpect(index.listPath(9, 9), 1);
+    t.checkExpect(index.path[0], 9);
+    // the path from the start to the exit is the one the maze lists
+    index.listPath(0, 399);
+    t.checkExpect(index.path[1], this.maze2.path.get(0).to.label);
+    // cells that are not connected have no path between them
+    WallGrid apart = new WallGrid(new Grid(3, 1));
+    apart.open(0, 1);
+    PathIndex split = new PathIndex(apart, 0);
+    split.build();
+    t.checkExpect(split.distance(0, 1), 1);
+    t.checkExpect(split.distance(0, 2), -1);
+    t.checkExpect(split.listPath(2, 1), 0);
+    t.checkExpect(split.listPath(1, 0), 2);
+    t.checkExpect(split.path[1], 0);
+  }
+
+  // tests for the distance field
+  void testDistanceField(Tester t) {
+    this.initData();
+    DistanceField d = this.maze.toExit;
+    t.checkExpect(d.dist, new int[] { 2, 1, 1, 0 });
+    t.checkExpect(d.distance(0), 2);
+    t.checkExpect(d.isWrongStep(1, 0), true);
+    t.checkExpect(d.isWrongStep(0, 1), false);
+    t.checkExpect(d.hint(0), 1);
+    t.checkExpect(d.hint(2), 3);
+    t.checkExpect(d.hint(3), -1);
+    DistanceField fromFirst = new DistanceField(this.maze.passages, 0);
+    t.checkExpect(fromFirst.dist, new int[] { 0, 1, 3, 2 });
+    t.checkExpect(new DistanceField(new WallGrid(new Grid(2, 1)), 1).dist, new int[] { -1, 0 });
+    // on a bigger maze the distance from the first vertex is the length of
+    // the shortest path
+    t.checkExpect(this.maze2.toExit.distance(0), this.maze2.path.size() + 1);
+  }
+
+  // tests for scoring moves in manual mode
+  void testWrongMoves(Tester t) {
+    this.initData();
+    this.maze.manualMode = true;
+    t.checkExpect(this.maze.distanceRemaining(), 2);
+    this.maze.onKeyEvent("down");
+    t.checkExpect(this.maze.distanceRemaining(), 1);
+    t.checkExpect(this.maze.wrongMoves, 0);
+    this.maze.onKeyEvent("up");
+    t.checkExpect(this.maze.wrongMoves, 1);
+    this.maze.onKeyEvent("h");
+    t.checkExpect(this.maze.paint.colorOf(1), Color.yellow);
+    this.maze.onKeyEvent("down");
+    this.maze.onKeyEvent("right");
+    t.checkExpect(this.maze.distanceRemaining(), 0);
+    t.checkExpect(this.maze.movesCount, 4);
+    t.checkExpect(this.maze.wrongMoves, 1);
+    this.maze.onKeyEvent("right");
+    t.checkExpect(this.maze.gameOver, true);
+    // the end screen reports the wrong moves
+    WorldScene end = this.maze.getEmptyScene();
+    end.placeImageXY(new TextImage("Maze Completed", 30, Color.BLACK), 250, 250);
+    end.placeImageXY(new TextImage("1 Wrong Moves", 30, Color.RED), 250, 325);
+    t.checkExpect(this.maze.makeScene(), end);
+  }
+
+  // tests for the colours of a view of a maze
+  void testCellPaint(Tester t) {
+    CellPaint paint = new CellPaint(4);
+    t.checkExpect(paint.colorOf(3), Color.white);
+    paint.paint(3, Color.orange);
+    t.checkExpect(paint.colorOf(3), Color.orange);
+    t.checkExpect(paint.indexOf(3), 3);
+    t.checkExpect(paint.indices.length, 4);
+    t.checkExpect(CellPaint.indexOf(Color.blue), 6);
+    t.checkExpect(CellPaint.indexOf(Color.black), -1);
+    t.checkException(new IllegalArgumentException(Color.black + " is not in the palette"), paint,
+        "paint", 1, Color.black);
+    paint.reset();
+    t.checkExpect(paint.colorOf(3), Color.white);
+    // painting a maze leaves its vertices alone
+    this.initData();
+    this.maze.recolor(this.maze.vertices.get(2), Color.red);
+    t.checkExpect(this.maze.paint.colorOf(2), Color.red);
+    t.checkExpect(this.maze.vertices.get(2), new Vertex(2, 1, 0));
+  }
+
+  // tests that a snapshot of a maze does not change with the maze
+  void testMazeTopology(Tester t) {
+    Maze m = new Maze(12, 9, 5L, false, true, false);
+    MazeTopology snap = m.snapshot();
+    t.checkExpect(m.snapshot() == snap, true);
+    t.checkExpect(snap.passages.cells, m.passages.cells);
+    t.checkExpect(snap.passages == m.passages, false);
+    t.checkExpect(snap.walls(4), m.passages.walls(4));
+    t.checkExpect(snap.neighbor(0, WallGrid.LEFT), -1);
+    t.checkExpect(snap.paths().distance(0, 107), m.path.size() + 1);
+    t.checkExpect(snap.distancesTo(107).distance(0), m.path.size() + 1);
+    byte[] before = Arrays.copyOf(snap.passages.cells, 108);
+    m.regenerate();
+    t.checkExpect(snap.passages.cells, before);
+    t.checkExpect(m.snapshot() == snap, false);
+    t.checkExpect(m.snapshot().passages.cells, m.passages.cells);
+  }
+
+  // tests that several threads can search one snapshot while the maze it was
+  // taken from is animated and rebuilt
+  void testConcurrentSearch(Tester t) throws Exception {
+    Maze m = new Maze(60, 40, 8L, false, true, false);
+    MazeTopology snap = m.snapshot();
+    int expected = snap.paths().distance(0, 2399);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ArrayList<ForkJoinTask<Integer>> searches = new ArrayList<ForkJoinTask<Integer>>();
+    for (int i = 0; i < 4; i++) {
+      searches.add(pool.submit(new Callable<Integer>() {
+        public Integer call() {
+          MazeSolver solver = snap.solver();
+          PathIndex paths = snap.paths();
+          int wrong = 0;
+          for (int k = 0; k < 200; k++) {
+            solver.solve(k, 2399 - k);
+            if (solver.pathLength - 1 != paths.distance(k, 2399 - k)) {
+              wrong++;
+            }
+          }
+          return wrong + paths.distance(0, 2399) - expected;
+        }
+      }));
+    }
+    for (int i = 0; i < 30; i++) {
+      m.onTick();
+      m.recolor(m.vertices.get(i), Color.blue);
+      m.regenerate();
+    }
+    for (ForkJoinTask<Integer> search : searches) {
+      t.checkExpect(search.get(), 0);
+    }
+    pool.shutdown();
+  }
+
+  // tests for the cell renderer
+  void testCellRenderer(Tester t) {
+    this.initData();
+    // cells are square, so 3 pixels is the most that fits both ways
+    CellRenderer r = new CellRenderer(this.maze.grid, 8, 6);
+    t.checkExpect(r.image.width, 8);
+    t.checkExpect(r.image.height, 6);
+    t.checkExpect(r.camera.cellSize, 3);
+    t.checkExpect(r.dirty.cardinality(), 4);
+    t.checkExpect(r.render(this.maze.walls, this.maze.paint), 4);
+    t.checkExpect(r.dirty.isEmpty(), true);
+    // every cell still has all four walls
+    t.checkExpect(r.image.getPixel(0, 0), Color.black);
+    t.checkExpect(r.image.getPixel(2, 1), Color.black);
+    t.checkExpect(r.image.getPixel(1, 1), Color.white);
+    t.checkExpect(r.image.getPixel(4, 4), Color.white);
+    t.checkExpect(r.image.getPixel(7, 4), Color.white);
+    t.checkExpect(r.render(this.maze.walls, this.maze.paint), 0);
+    this.maze.walls.open(0, 2);
+    this.maze.paint.paint(2, Color.red);
+    r.markDirty(0);
+    r.markDirty(2);
+    t.checkExpect(r.render(this.maze.walls, this.maze.paint), 2);
+    t.checkExpect(r.image.getPixel(2, 1), Color.white);
+    t.checkExpect(r.image.getPixel(3, 1), Color.red);
+    t.checkExpect(r.image.getPixel(4, 0), Color.black);
+    // cells that are not marked keep what was drawn before
+    this.maze.paint.paint(1, Color.blue);
+    t.checkExpect(r.render(this.maze.walls, this.maze.paint), 0);
+    t.checkExpect(r.image.getPixel(1, 4), Color.white);
+    r.markAll();
+    t.checkExpect(r.render(this.maze.walls, this.maze.paint), 4);
+    t.checkExpect(r.image.getPixel(1, 4), Color.blue);
+    // a maze bigger than the view is shown a block of cells to a pixel
+    CellRenderer big = new CellRenderer(new Grid(1000, 1000), 500, 500);
+    t.checkExpect(big.image.width, 500);
+    t.checkExpect(big.camera.lod, 2);
+    t.checkExpect(big.camera.cellSize, 1);
+  }
+
+  // tests for moving the camera
+  void testCamera(Tester t) {
+    Camera c = new Camera(new Grid(100, 60), 50, 50);
+    t.checkExpect(c.lod, 2);
+    t.checkExpect(c.cellSize, 1);
+    t.checkExpect(c.cellsAcross(), 100);
+    c.zoomIn();
+    t.checkExpect(c.lod, 1);
+    t.checkExpect(c.cellsAcross(), 50);
+    // zooming keeps the middle of the view in the middle
+    t.checkExpect(c.left, 25);
+    t.checkExpect(c.top, 5);
+    t.checkExpect(c.isVisible(25, 5), true);
+    t.checkExpect(c.isVisible(75, 5), false);
+    c.zoomIn();
+    t.checkExpect(c.cellSize, 2);
+    t.checkExpect(c.cellsAcross(), 25);
+    int changes = c.changes;
+    c.pan(1, 0);
+    t.checkExpect(c.left, 44);
+    t.checkExpect(c.changes, changes + 1);
+    // the view never leaves the grid
+    for (int i = 0; i < 10; i++) {
+      c.pan(1, 1);
+    }
+    t.checkExpect(c.left, 75);
+    t.checkExpect(c.top, 35);
+    c.pan(1, 1);
+    t.checkExpect(c.changes, changes + 7);
+    c.centreOn(10, 10);
+    t.checkExpect(c.left, 0);
+    c.following = false;
+    c.follow(50, 30);
+    t.checkExpect(c.left, 0);
+    c.following = true;
+    c.follow(50, 30);
+    t.checkExpect(c.left, 38);
+    t.checkExpect(c.top, 18);
+    c.zoomOut();
+    c.zoomOut();
+    c.zoomOut();
+    t.checkExpect(c.lod, 2);
+    c.zoomOut();
+    t.checkExpect(c.lod, 2);
+    c.fit();
+    t.checkExpect(c.left, 0);
+    t.checkExpect(new Camera(new Grid(2, 2), 500, 500).cellSize, 250);
+    t.checkExpect(new Camera(new Grid(1, 1), 500, 500).cellSize, Camera.MAX_CELL_SIZE);
+  }
+
+  // tests for the summary of a maze at every block size
+  void testLodPyramid(Tester t) {
+    LodPyramid p = new LodPyramid(new Grid(3, 3), 3);
+    t.checkExpect(p.levels[1].width, 2);
+    t.checkExpect(p.levels[2].width, 1);
+    for (int cell = 0; cell < 9; cell++) {
+      p.set(cell, 4, 0);
+    }
+    t.checkExpect(p.walls[2][0], 36);
+    t.checkExpect(p.walls[1][3], 4);
+    t.checkExpect(p.shade(2, 0, 0, 4), Color.black);
+    p.set(8, 2, LodPyramid.rank(Color.red));
+    t.checkExpect(p.walls[2][0], 34);
+    t.checkExpect(p.shade(2, 0, 0, 4), Color.red);
+    t.checkExpect(p.shade(1, 0, 0, 2), Color.black);
+    p.set(0, 2, LodPyramid.rank(Color.blue));
+    t.checkExpect(p.shade(2, 0, 0, 4), Color.blue);
+    p.set(0, 2, 0);
+    p.set(8, 2, 0);
+    t.checkExpect(p.shade(2, 0, 0, 4), LodPyramid.GREYS[255 - 255 * 32 / 36]);
+    // a block on the edge only counts the cells it has
+    t.checkExpect(p.shade(1, 1, 1, 2), LodPyramid.GREYS[255 - 255 * 2 / 4]);
+    t.checkExpect(LodPyramid.rank(Color.black), 0);
+    t.checkExpect(LodPyramid.rank(Color.white), 0);
+  }
+
+  // tests for drawing a maze zoomed out past a pixel to a cell
+  void testZoomedOut(Tester t) {
+    Maze m = new Maze(1000, 800, 4L, false, true, false);
+    CellRenderer r = m.renderer;
+    t.checkExpect(r.camera.lod, 2);
+    m.makeScene();
+    t.checkExpect(r.pyramid == null, false);
+    // nothing has been knocked down yet, so every block is black
+    t.checkExpect(r.image.getPixel(100, 100), Color.black);
+    t.checkExpect(r.image.getPixel(100, 450), Color.white);
+    m.recolor(m.vertices.get(m.grid.index(401, 301)), Color.blue);
+    t.checkExpect(r.render(m.walls, m.paint), 1);
+    t.checkExpect(r.image.getPixel(200, 150), Color.blue);
+    m.walls.open(0, 1);
+    r.markDirty(0);
+    r.markDirty(1);
+    t.checkExpect(r.render(m.walls, m.paint), 2);
+    t.checkExpect(r.image.getPixel(0, 0), LodPyramid.GREYS[255 - 255 * 14 / 16]);
+    // zooming in only draws the cells in view
+    m.onKeyEvent("+");
+    t.checkExpect(r.render(m.walls, m.paint), 500 * 500);
+    t.checkExpect(r.camera.left, 250);
+    t.checkExpect(r.camera.top, 150);
+    m.recolor(m.vertices.get(m.grid.index(10, 10)), Color.red);
+    t.checkExpect(r.render(m.walls, m.paint), 0);
+    m.recolor(m.vertices.get(m.grid.index(401, 301)), Color.red);
+    t.checkExpect(r.render(m.walls, m.paint), 1);
+  }
+
+  // tests that the camera follows the player
+  void testFollowPlayer(Tester t) {
+    Maze m = new Maze(40, 40, 2L, false, false, true);
+    m.onKeyEvent("+");
+    m.onKeyEvent("+");
+    t.checkExpect(m.renderer.camera.cellSize, 48);
+    m.onKeyEvent("0");
+    t.checkExpect(m.renderer.camera.left, 0);
+    m.onKeyEvent("+");
+    m.onKeyEvent("d");
+    int left = m.renderer.camera.left;
+    t.checkExpect(left > 0, true);
+    for (int i = 0; i < 40; i++) {
+      m.onKeyEvent("down");
+      m.onKeyEvent("right");
+    }
+    Camera c = m.renderer.camera;
+    t.checkExpect(c.isVisible(m.vPlayable.x, m.vPlayable.y), true);
+    m.onKeyEvent("f");
+    t.checkExpect(c.following, false);
+  }
+
+  // tests that a maze only redraws what changed between frames
+  void testDirtyCells(Tester t) {
+    this.initData();
+    this.maze.bfs = true;
+    this.maze.solution = this.maze.bfs();
+    this.maze.makeScene();
+    t.checkExpect(this.maze.renderer.dirty.isEmpty(), true);
+    this.maze.onTick();
+    t.checkExpect(this.maze.renderer.dirty.cardinality(), 2);
+    this.maze.makeScene();
+    t.checkExpect(this.maze.renderer.image.getPixel(100, 249), Color.green);
+    t.checkExpect(this.maze.renderer.image.getPixel(249, 100), Color.black);
+    this.maze.onKeyEvent("r");
+    t.checkExpect(this.maze.renderer.dirty.cardinality(), 4);
+  }
+
+  // tests for showing the start of a maze being played
+  void testManualStart(Tester t) {
+    this.initData();
+    this.maze.onMouseClicked(new Posn(250, 350));
+    this.maze.makeScene();
+    // the start is red in the very frame that first shows it
+    t.checkExpect(this.maze.paint.colorOf(0), Color.red);
+    t.checkExpect(this.maze.renderer.image.getPixel(100, 100), Color.red);
+    // and is not drawn again until something changes
+    t.checkExpect(this.maze.renderer.dirty.cardinality(), 0);
+    this.maze.makeScene();
+    t.checkExpect(this.maze.renderer.dirty.cardinality(), 0);
+  }
+
+  // tests for the animation scheduler
+  void testAnimationScheduler(Tester t) {
+    AnimationScheduler a = new AnimationScheduler(8000000, 4);
+    // nothing measured yet, so a phase is just spread over its frames
+    t.checkExpect(a.batch(3), 1);
+    t.checkExpect(a.batch(10), 3);
+    t.checkExpect(a.batch(0), 1);
+    a.record(3, 300000);
+    t.checkExpect(a.framesLeft, 3);
+    t.checkExpect(a.nanosPerStep, 100000.0);
+    t.checkExpect(a.batch(1000000), 80);
+    t.checkExpect(a.batch(30), 10);
+    a.recordRender(900000);
+    a.record(2, 300000);
+    t.checkExpect(a.nanosPerStep, 0.75 * 100000 + 0.25 * 600000);
+    t.checkExpect(a.batch(1000000), 35);
+    // a frame without a step is not counted
+    a.record(0, 5);
+    t.checkExpect(a.framesLeft, 2);
+    t.checkExpect(a.nanosPerStep, 0.75 * 100000 + 0.25 * 600000);
+    a.recordRender(0);
+    a.record(1, 5);
+    a.record(1, 5);
+    t.checkExpect(a.framesLeft, 0);
+    // a phase that runs out of frames is finished as fast as the budget allows
+    t.checkExpect(a.batch(20), 20);
+    a.startPhase();
+    t.checkExpect(a.framesLeft, 4);
+  }
+
+  // tests for on tick
+  void testOnTick(Tester t) {
+    this.initData();
+    this.maze.bfs = true;
+    this.maze.solution = this.maze.bfs();
+    // a small maze still shows one step a frame
+    this.maze.onTick();
+    t.checkExpect(this.maze.currIdxOfE, 1);
+    t.checkExpect(this.maze.walls.walls(0), WallGrid.LEFT + WallGrid.TOP + WallGrid.RIGHT);
+    this.maze.onTick();
+    this.maze.onTick();
+    t.checkExpect(this.maze.currIdxOfE, 3);
+    t.checkExpect(this.maze.solveMaze, false);
+    this.maze.onTick();
+    t.checkExpect(this.maze.solveMaze, true);
+    t.checkExpect(this.maze.solutionIdx, 1);
+    t.checkExpect(this.maze.solution.size(), 2);
+    t.checkExpect(this.maze.isAnimationDone(), false);
+    this.maze.onTick();
+    t.checkExpect(this.maze.isAnimationDone(), true);
+    t.checkExpect(this.maze.paint.colorOf(3), Color.red);
+    this.maze.onTick();
+    t.checkExpect(this.maze.paint.colorOf(3), Color.pink);
+    t.checkExpect(this.maze.paint.colorOf(1), Color.pink);
+
+    // a big maze is shown in about as many frames as a small one
+    Maze big = new Maze(200, 200, false, true, false);
+    big.solution = big.bfs();
+    int frames = 0;
+    while (!big.isAnimationDone() && frames < 10000) {
+      big.onTick();
+      big.makeScene();
+      frames++;
+    }
+    t.checkExpect(big.isAnimationDone(), true);
+    t.checkExpect(big.passages.cells, big.walls.cells);
+    t.checkExpect(frames < 1000, true);
+
+    // time spent in the menu does not use up the frames of the animation
+    Maze waiting = new Maze(100, 100, false, false, false);
+    for (int i = 0; i < 400; i++) {
+      waiting.onTick();
+    }
+    t.checkExpect(waiting.animation.framesLeft, 300);
+    t.checkExpect(waiting.currIdxOfE, 0);
+    waiting.onMouseClicked(new Posn(300, 100));
+    waiting.onTick();
+    t.checkExpect(waiting.currIdxOfE, 34);
+    t.checkExpect(waiting.animation.framesLeft, 299);
+  }
+
+  // tests for the kruskal generator
+  void testKruskalGenerator(Tester t) {
+    this.initData();
+    KruskalGenerator g = new KruskalGenerator(new Grid(2, 2), new Random(4));
+    g.genEdges();
+    t.checkExpect(g.edgeCount, 4);
+    t.checkExpect(g.from, new int[] { 0, 0, 1, 2 });
+    t.checkExpect(g.to, new int[] { 2, 1, 3, 3 });
+    t.checkExpect(g.weights, new int[] { 12, 2, 3, 8 });
+    g.buildSpan();
+    t.checkExpect(g.spanSize, 3);
+    t.checkExpect(g.span, new int[] { 1, 2, 3 });
+    // a generator on its own builds the same maze as a maze with the same seed
+    t.checkExpect(new KruskalGenerator(new Grid(2, 2), new Random(4)).generate().cells,
+        this.maze.passages.cells);
+    WallGrid big = new KruskalGenerator(new Grid(30, 20), new Random(7)).generate();
+    t.checkExpect(this.isPerfect(big), true);
+    t.checkExpect(new KruskalGenerator(new Grid(1, 1), new Random(7)).generate().cells,
+        new byte[] { WallGrid.ALL });
+  }
+
+  // adds up the weights of the edges in the tree of the given generator
+  int spanWeight(IMazeGenerator g) {
+    int total = 0;
+    for (int i = 0; i < g.spanSize(); i++) {
+      total = total + g.edgeWeight(g.spanEdge(i));
+    }
+    return total;
+  }
+
+  // tests for generating mazes with Prim's algorithm
+  void testPrimGenerator(Tester t) {
+    PrimGenerator prim = new PrimGenerator(new Grid(4, 3), new Random(2));
+    prim.genEdges();
+    // the index of every edge is worked out from its cells
+    boolean indexed = true;
+    for (int i = 0; i < prim.edgeCount; i++) {
+      int side = WallGrid.BOTTOM;
+      if (prim.to[i] == prim.from[i] + 3) {
+        side = WallGrid.RIGHT;
+      }
+      indexed = indexed && prim.edgeIndex(prim.from[i], side) == i;
+    }
+    t.checkExpect(indexed, true);
+    t.checkExpect(this.isPerfect(new PrimGenerator(new Grid(30, 20), new Random(7)).generate()),
+        true);
+    t.checkExpect(new PrimGenerator(new Grid(1, 1), new Random(7)).generate().cells,
+        new byte[] { WallGrid.ALL });
+    // on the same weights, both algorithms find a tree of the least weight
+    PrimGenerator p = new PrimGenerator(new Grid(25, 25), new Random(9));
+    KruskalGenerator k = new KruskalGenerator(new Grid(25, 25), new Random(9));
+    p.generate();
+    k.generate();
+    t.checkExpect(p.weights, k.weights);
+    t.checkExpect(p.spanSize, 624);
+    t.checkExpect(this.spanWeight(p), this.spanWeight(k));
+    // every edge of the tree grows it by a cell
+    t.checkExpect(p.span[0] == p.edgeIndex(0, WallGrid.RIGHT)
+        || p.span[0] == p.edgeIndex(0, WallGrid.BOTTOM), true);
+  }
+
+  // tests for generating mazes with the recursive backtracker
+  void testBacktrackerGenerator(Tester t) {
+    BacktrackerGenerator b = new BacktrackerGenerator(new Grid(30, 20), new Random(7));
+    t.checkExpect(this.isPerfect(b.generate()), true);
+    t.checkExpect(b.edgeCount, 599);
+    t.checkExpect(b.spanSize, 599);
+    t.checkExpect(b.from[0], 0);
+    // every edge carves on from a cell the walk has been to
+    t.checkExpect(b.edgeWeight(b.spanEdge(5)), 0);
+    b.genEdges();
+    t.checkExpect(b.edgeCount(), 0);
+    // a corridor a million cells long is no deeper than any other maze
+    BacktrackerGenerator deep = new BacktrackerGenerator(new Grid(1, 1000000), new Random(1));
+    deep.generate();
+    t.checkExpect(deep.spanSize, 999999);
+    t.checkExpect(new BacktrackerGenerator(new Grid(1, 1), new Random(7)).generate().cells,
+        new byte[] { WallGrid.ALL });
+  }
+
+  // tests for picking a generator by the id of its algorithm
+  void testMakeGenerator(Tester t) {
+    Grid g = new Grid(3, 3);
+    t.checkExpect(
+        AMazeGenerator.make(MazeFile.KRUSKAL, g, new Random(1)) instanceof KruskalGenerator, true);
+    t.checkExpect(AMazeGenerator.make(MazeFile.PRIM, g, new Random(1)) instanceof PrimGenerator,
+        true);
+    t.checkExpect(AMazeGenerator.make(MazeFile.BACKTRACKER, g, new Random(1))
+        instanceof BacktrackerGenerator, true);
+    String message = "";
+    try {
+      AMazeGenerator.make(MazeFile.ELLER, g, new Random(1));
+    }
+    catch (IllegalArgumentException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, "no generator for algorithm 1");
+  }
+
+  // tests for building a maze with every generator
+  void testUseGenerator(Tester t) {
+    for (int algorithm : new int[] { MazeFile.KRUSKAL, MazeFile.PRIM, MazeFile.BACKTRACKER }) {
+      Maze m = new Maze(15, 12, 6L, algorithm, false, true, false);
+      t.checkExpect(this.isPerfect(m.passages), true);
+      t.checkExpect(m.span.size(), 179);
+      t.checkExpect(m.paths.distance(0, 179), m.path.size() + 1);
+    }
+    Maze m = new Maze(15, 12, 6L, false, false, false);
+    m.onMouseClicked(new Posn(250, 475));
+    t.checkExpect(m.algorithm, MazeFile.PRIM);
+    t.checkExpect(m.generator instanceof PrimGenerator, true);
+    t.checkExpect(m.passages.cells, new Maze(15, 12, 6L, MazeFile.PRIM, false, false, false)
+        .passages.cells);
+    // choosing a generator stays on the menu
+    t.checkExpect(m.bfs || m.dfs || m.manualMode, false);
+    m.onMouseClicked(new Posn(450, 490));
+    t.checkExpect(m.algorithm, MazeFile.BACKTRACKER);
+    t.checkExpect(m.edges.size(), 0);
+    t.checkExpect(this.isPerfect(m.passages), true);
+    m.regenerate();
+    t.checkExpect(m.generator instanceof BacktrackerGenerator, true);
+    t.checkExpect(this.isPerfect(m.passages), true);
+  }
+
+  // tests for generating a batch of mazes
+  void testBatchGenerator(Tester t) throws IOException {
+    Path dir = Files.createTempDirectory("batch");
+    BatchGenerator batch = new BatchGenerator(new Grid(9, 7), 100, 5, dir);
+    batch.generate(new ForkJoinPool(2));
+    t.checkExpect(batch.pathOf(102), dir.resolve("maze-102.maze"));
+    for (long seed = 100; seed < 105; seed++) {
+      MazeFile file = MazeFile.open(batch.pathOf(seed));
+      t.checkExpect(file.seed, seed);
+      t.checkExpect(file.width, 9);
+      // a maze file can stand in for the maze built from its seed
+      t.checkExpect(file.toWallGrid().cells,
+          new Maze(9, 7, seed, false, false, false).passages.cells);
+      Files.delete(batch.pathOf(seed));
+    }
+    t.checkExpect(Files.exists(batch.pathOf(105)), false);
+    new BatchGenerator(new Grid(9, 7), 0, 0, dir).generate(new ForkJoinPool(2));
+    BatchGenerator prim = new BatchGenerator(new Grid(9, 7), 3, 1, dir, MazeFile.PRIM);
+    prim.generate(new ForkJoinPool(1));
+    MazeFile file = MazeFile.open(prim.pathOf(3));
+    t.checkExpect(file.algorithm, MazeFile.PRIM);
+    t.checkExpect(file.toWallGrid().cells,
+        new Maze(9, 7, 3, MazeFile.PRIM, false, false, false).passages.cells);
+    Files.delete(prim.pathOf(3));
+    // striped mazes are split into the stripes asked for, whatever the threads
+    BatchGenerator striped = new BatchGenerator(new Grid(9, 12), 8, 3, dir,
+        MazeFile.STRIPED, 3);
+    striped.generate(new ForkJoinPool(2));
+    for (long seed = 8; seed < 11; seed++) {
+      MazeFile stripedFile = MazeFile.open(striped.pathOf(seed));
+      t.checkExpect(stripedFile.algorithm, MazeFile.STRIPED);
+      t.checkExpect(stripedFile.toWallGrid().cells,
+          new StripedKruskal(new Grid(9, 12), seed, 3).generate(new ForkJoinPool(1)).cells);
+      Files.delete(striped.pathOf(seed));
+    }
+    t.checkExpect(BatchGenerator.build(MazeFile.STRIPED, new Grid(9, 12), 8, 3).cells,
+        new StripedKruskal(new Grid(9, 12), 8, 3).generate(new ForkJoinPool(1)).cells);
+    t.checkExpect(BatchGenerator.build(MazeFile.PRIM, new Grid(9, 7), 3, 3).cells,
+        new Maze(9, 7, 3, MazeFile.PRIM, false, false, false).passages.cells);
+    Files.delete(dir);
+  }
+
+  // tests for splitting seeds
+  void testSeedTree(Tester t) {
+    SeedTree root = new SeedTree(42);
+    t.checkExpect(root.child(3).seed, new SeedTree(42).child(3).seed);
+    t.checkExpect(root.child(3).seed == root.child(4).seed, false);
+    t.checkExpect(root.child(3).seed == new SeedTree(43).child(3).seed, false);
+    t.checkExpect(root.child(0).seed == root.seed, false);
+    t.checkExpect(root.child(1).child(2).seed == root.child(2).child(1).seed, false);
+    t.checkExpect(root.random().nextLong(), new SplittableRandom(42).nextLong());
+    t.checkExpect(SeedTree.mix(0), 0L);
+    t.checkExpect(SeedTree.mix(1) == 1, false);
+  }
+
+  // tests for building mazes from a seed
+  void testSeededMaze(Tester t) {
+    Maze a = new Maze(13, 9, 2024L, false, false, false);
+    Maze b = new Maze(13, 9, 2024L, false, false, false);
+    t.checkExpect(a.seed, 2024L);
+    t.checkExpect(a.passages.cells, b.passages.cells);
+    t.checkExpect(a.span.size(), 116);
+    t.checkExpect(Arrays.equals(new Maze(13, 9, 2025L, false, false, false).passages.cells,
+        a.passages.cells), false);
+    // regenerating moves on to a seed that builds the same maze again
+    a.onKeyEvent("r");
+    t.checkExpect(a.seed, new SeedTree(2024L).child(0).seed);
+    t.checkExpect(a.passages.cells, new Maze(13, 9, a.seed, false, false, false).passages.cells);
+    t.checkExpect(new Maze(13, 9, false, false, false).seed == a.seed, false);
+  }
+
+  // tests that rows drawn from their own streams do not depend on each other
+  void testEllerSeeds(Tester t) {
+    WallGrid a = new WallGrid(new Grid(8, 6));
+    WallGrid b = new WallGrid(new Grid(8, 6));
+    new EllerGenerator(8, 6, new SeedTree(5)).generate(new WallGridSink(a));
+    new EllerGenerator(8, 6, new SeedTree(5)).generate(new WallGridSink(b));
+    t.checkExpect(this.isPerfect(a), true);
+    t.checkExpect(a.cells, b.cells);
+    // the first row of a taller maze is the same, since it has the same stream
+    WallGrid tall = new WallGrid(new Grid(8, 9));
+    new EllerGenerator(8, 9, new SeedTree(5)).generate(new WallGridSink(tall));
+    t.checkExpect(tall.walls(tall.grid.index(3, 0)) & WallGrid.RIGHT,
+        a.walls(a.grid.index(3, 0)) & WallGrid.RIGHT);
+  }
+
+  // tests for counting the work of every phase
+  void testMazeMetrics(Tester t) {
+    this.initData();
+    MazeMetrics m = new MazeMetrics();
+    PhaseEvent event = m.start(MazeMetrics.GEN_EDGES);
+    t.checkExpect(event.phase, "genEdges");
+    m.finish(event, 10, 4);
+    m.finish(m.start(MazeMetrics.GEN_EDGES), 6, 2);
+    t.checkExpect(m.runs[MazeMetrics.GEN_EDGES].sum(), 2L);
+    t.checkExpect(m.cells[MazeMetrics.GEN_EDGES].sum(), 16L);
+    t.checkExpect(m.edges[MazeMetrics.GEN_EDGES].sum(), 6L);
+    t.checkExpect(m.runs[MazeMetrics.BUILD_SPAN].sum(), 0L);
+    t.checkExpect(m.nanos[MazeMetrics.GEN_EDGES].sum() >= 0, true);
+    t.checkExpect(m.bytes[MazeMetrics.GEN_EDGES].sum() >= 0, true);
+    t.checkExpect(m.report().contains("buildListofShortest"), true);
+
+    // a maze counts every phase it goes through, including its searches
+    this.maze2.metrics = m;
+    this.maze2.found = false;
+    this.maze2.bfs();
+    t.checkExpect(m.runs[MazeMetrics.SEARCH].sum(), 1L);
+    t.checkExpect(m.expanded.sum(), (long) this.maze2.solver.explored);
+    t.checkExpect(m.peakWorklist.get(), (long) this.maze2.solver.peakWorklist);
+    t.checkExpect(this.maze2.solver.peakWorklist > 0, true);
+    this.maze2.onKeyEvent("r");
+    t.checkExpect(m.runs[MazeMetrics.GEN_VERTICES].sum(), 1L);
+    t.checkExpect(m.cells[MazeMetrics.GEN_VERTICES].sum(), 400L);
+    t.checkExpect(m.edges[MazeMetrics.GEN_EDGES].sum(), 6L + 760);
+    t.checkExpect(m.edges[MazeMetrics.GEN_OUT_EDGE].sum(), 399L);
+    t.checkExpect(m.edges[MazeMetrics.BUILD_SPAN].sum() >= 399, true);
+    t.checkExpect(m.runs[MazeMetrics.BUILD_SHORTEST].sum(), 1L);
+    // choosing a mode from the menu builds nothing
+    long built = MazeMetrics.GLOBAL.runs[MazeMetrics.GEN_VERTICES].sum();
+    this.maze.onMouseClicked(new Posn(300, 100));
+    t.checkExpect(MazeMetrics.GLOBAL.runs[MazeMetrics.GEN_VERTICES].sum(), built);
+    t.checkExpect(m.runs[MazeMetrics.GEN_VERTICES].sum(), 1L);
+  }
+
+  // tests for the most cells a solver had waiting at once
+  void testPeakWorklist(Tester t) {
+    this.initData();
+    // a plain corridor never has more than one cell waiting
+    WallGrid corridor = new WallGrid(new Grid(5, 1));
+    for (int i = 0; i < 4; i++) {
+      corridor.open(i, i + 1);
+    }
+    MazeSolver s = new MazeSolver(corridor);
+    s.solve(0, 4);
+    t.checkExpect(s.peakWorklist(), 1);
+    s.solve(2, 4);
+    t.checkExpect(s.peakWorklist(), 2);
+    AStarSolver a = new AStarSolver(corridor);
+    a.solve(2, 4);
+    t.checkExpect(a.peakWorklist(), 2);
+    BidirectionalSolver b = new BidirectionalSolver(corridor);
+    b.solve(0, 4);
+    t.checkExpect(b.peakWorklist(), 2);
+  }
+
+  // tests that phases show up in Flight Recorder
+  void testPhaseEvents(Tester t) throws IOException {
+    Path path = Files.createTempFile("mazes", ".jfr");
+    Recording recording = new Recording();
+    recording.enable("Mazes.Phase");
+    recording.enable("Mazes.Search");
+    recording.start();
+    Maze m = new Maze(8, 8, 3L, false, false, false);
+    m.bfs();
+    recording.stop();
+    recording.dump(path);
+    recording.close();
+    int phases = 0;
+    int searches = 0;
+    for (RecordedEvent e : RecordingFile.readAllEvents(path)) {
+      if (e.getEventType().getName().equals("Mazes.Phase")) {
+        phases++;
+      }
+      else if (e.getEventType().getName().equals("Mazes.Search")) {
+        searches++;
+        t.checkExpect(e.getLong("expanded"), (long) m.solver.explored);
+      }
+    }
+    t.checkExpect(phases, 6);
+    t.checkExpect(searches, 1);
+    Files.delete(path);
+  }
+
+  // tests for regenerating a maze in place
+  void testRegenerate(Tester t) {
+    this.initData();
+    Maze m = new Maze(20, 15, 9L, false, true, false);
+    m.solution = m.bfs();
+    Vertex v = m.vertices.get(5);
+    Edge e = m.edges.get(7);
+    ArrayList<Edge> span = m.span;
+    ArrayList<Edge> solution = m.solution;
+    WallGrid passages = m.passages;
+    m.onTick();
+    m.paint.paint(3, Color.red);
+    m.onKeyEvent("r");
+    Maze fresh = new Maze(20, 15, m.seed, false, true, false);
+    ArrayList<Edge> freshSolution = fresh.bfs();
+    // the same objects now hold the next maze
+    t.checkExpect(m.vertices.get(5) == v, true);
+    t.checkExpect(m.edges.get(7) == e, true);
+    t.checkExpect(m.span == span && m.solution == solution && m.passages == passages, true);
+    t.checkExpect(m.passages.cells, fresh.passages.cells);
+    t.checkExpect(m.edges, fresh.edges);
+    t.checkExpect(m.span, fresh.span);
+    t.checkExpect(m.path, fresh.path);
+    t.checkExpect(m.toExit.dist, fresh.toExit.dist);
+    t.checkExpect(m.walls.cells, fresh.walls.cells);
+    t.checkExpect(m.paint.colorOf(3), Color.white);
+    t.checkExpect(m.currIdxOfE, 0);
+    t.checkExpect(m.solution, freshSolution);
+    t.checkExpect(m.bfs, true);
+  }
+
+  // tests that restarting a maze makes next to no garbage
+  void testRegenerateGarbage(Tester t) {
+    long start = MazeMetrics.allocatedBytes();
+    Maze m = new Maze(100, 100, 1L, false, true, false);
+    m.solution = m.bfs();
+    long built = MazeMetrics.allocatedBytes() - start;
+    m.onKeyEvent("r");
+    m.onKeyEvent("r");
+    start = MazeMetrics.allocatedBytes();
+    for (int i = 0; i < 4; i++) {
+      m.onKeyEvent("r");
+    }
+    long restarts = MazeMetrics.allocatedBytes() - start;
+    // only edges a longer search needs on top of the ones it already has are new
+    t.checkExpect(restarts < built / 20, true);
+  }
+
+  // tests for putting edges into a list in place
+  void testPutEdge(Tester t) {
+    this.initData();
+    ArrayList<Edge> list = new ArrayList<Edge>();
+    this.maze.putEdge(list, 0, this.v1, this.v2, 3);
+    t.checkExpect(list, new ArrayList<Edge>(Arrays.asList(new Edge(this.v1, this.v2, 3))));
+    Edge first = list.get(0);
+    this.maze.putEdge(list, 0, this.v2, this.v4, 0);
+    this.maze.putEdge(list, 1, this.v4, this.v3, 0);
+    t.checkExpect(list.get(0) == first, true);
+    t.checkExpect(list, new ArrayList<Edge>(Arrays.asList(this.e7, this.e10)));
+    this.maze.truncate(list, 1);
+    t.checkExpect(list, new ArrayList<Edge>(Arrays.asList(this.e7)));
+    this.maze.truncate(list, 4);
+    t.checkExpect(list.size(), 1);
+  }
+
+  // tests for a tiled maze
+  void testTiledMaze(Tester t) {
+    TiledMaze m = new TiledMaze(17L, 6, 4);
+    t.checkExpect(m.tileOf(5), 0);
+    t.checkExpect(m.tileOf(6), 1);
+    t.checkExpect(m.tileOf(-1), -1);
+    t.checkExpect(m.tileOf(-6), -1);
+    t.checkExpect(m.tileOf(-7), -2);
+    t.checkExpect(m.inTile(-1), 5);
+    t.checkExpect(m.inTile(13), 1);
+    // walls are the same from both sides, across the seams between tiles too
+    for (long x = -9; x < 9; x++) {
+      for (long y = -9; y < 9; y++) {
+        t.checkExpect((m.walls(x, y) & WallGrid.RIGHT) != 0,
+            (m.walls(x + 1, y) & WallGrid.LEFT) != 0);
+        t.checkExpect((m.walls(x, y) & WallGrid.BOTTOM) != 0,
+            (m.walls(x, y + 1) & WallGrid.TOP) != 0);
+      }
+    }
+    // the same seed builds the same tiles, whatever order they are needed in
+    // and even after they have been evicted
+    TiledMaze other = new TiledMaze(17L, 6, 2);
+    t.checkExpect(other.walls(1000000007L, -3), m.walls(1000000007L, -3));
+    for (long y = 20; y > -20; y--) {
+      t.checkExpect(other.walls(4, y), m.walls(4, y));
+    }
+    t.checkExpect(Arrays.equals(new TiledMaze(18L, 6, 2).tile(0, 0).cells,
+        m.tile(0, 0).cells), false);
+  }
+
+  // tests that the tiles of a tiled maze are joined up
+  void testTiledMazeConnected(Tester t) {
+    TiledMaze m = new TiledMaze(5L, 5, 16);
+    // copy a block of 3 by 3 tiles, with walls all round it
+    WallGrid block = new WallGrid(new Grid(15, 15));
+    for (int x = 0; x < 15; x++) {
+      for (int y = 0; y < 15; y++) {
+        int walls = m.walls(x - 5, y - 5);
+        if (x == 0) {
+          walls = walls | WallGrid.LEFT;
+        }
+        if (x == 14) {
+          walls = walls | WallGrid.RIGHT;
+        }
+        if (y == 0) {
+          walls = walls | WallGrid.TOP;
+        }
+        if (y == 14) {
+          walls = walls | WallGrid.BOTTOM;
+        }
+        block.cells[block.grid.index(x, y)] = (byte) walls;
+      }
+    }
+    DistanceField d = new DistanceField(block, 0);
+    boolean reached = true;
+    for (int dist : d.dist) {
+      reached = reached && dist >= 0;
+    }
+    t.checkExpect(reached, true);
+    // every tile on its own is a perfect maze apart from its doors
+    WallGrid tile = new WallGrid(m.tileGrid);
+    m.generator.carve(tile);
+    t.checkExpect(this.isPerfect(tile), true);
+  }
+
+  // tests that a tiled maze keeps only a bounded number of tiles
+  void testTileCache(Tester t) {
+    TiledMaze m = new TiledMaze(3L, 8, 9);
+    for (long x = 0; x < 8 * 100; x++) {
+      m.walls(x, 0);
+      m.walls(x, 8);
+    }
+    t.checkExpect(m.cache.size(), 9);
+    t.checkExpect(m.generated, 200L);
+    t.checkExpect(m.cache.evictions, 191L);
+    // the most recently used tiles are still there
+    m.walls(8 * 99, 0);
+    t.checkExpect(m.generated, 200L);
+    m.walls(0, 0);
+    t.checkExpect(m.generated, 201L);
+  }
+
+  // tests for walking through a tiled maze
+  void testTiledMazeWorld(Tester t) {
+    TiledMazeWorld w = new TiledMazeWorld(new TiledMaze(9L, 8, 16), 11, 440);
+    t.checkExpect(w.renderer.image.width, 440);
+    int walls = w.maze.walls(0, 0);
+    w.onKeyEvent("right");
+    long x = 0;
+    if ((walls & WallGrid.RIGHT) == 0) {
+      x = 1;
+    }
+    t.checkExpect(w.playerX, x);
+    t.checkExpect(w.movesCount, (int) x);
+    // walking along the open sides of every cell never goes through a wall
+    for (int i = 0; i < 200; i++) {
+      long px = w.playerX;
+      long py = w.playerY;
+      int open = w.maze.walls(px, py);
+      String[] keys = { "left", "right", "up", "down" };
+      w.onKeyEvent(keys[i % 4]);
+      t.checkExpect(Math.abs(w.playerX - px) + Math.abs(w.playerY - py) <= 1, true);
+      if (w.playerX > px) {
+        t.checkExpect(open & WallGrid.RIGHT, 0);
+      }
+    }
+    w.makeScene();
+    t.checkExpect(w.renderer.image.getPixel(220, 220), Color.blue);
+    t.checkExpect(w.maze.cache.size() <= 16, true);
+  }
+
   // tests for on mouse clicked
   void testOnMouseClick(Tester t) {
     this.initData();
@@ -1149,17 +6028,6 @@ class ExamplesMazes {
     t.checkExpect(this.maze.manualMode, true);
   }
 
-  // tests for remove duplicates
-  void testRemoveDuplicates(Tester t) {
-    this.initData();
-    ArrayList<Edge> edges = new ArrayList<Edge>(Arrays.asList(this.e1, this.e1, this.e3));
-    this.maze.removeDuplicates(edges);
-    t.checkExpect(edges, new ArrayList<Edge>(Arrays.asList(this.e1, this.e3)));
-    ArrayList<Edge> edges2 = new ArrayList<Edge>(Arrays.asList(this.e3, this.e4, this.e1, this.e3));
-    this.maze.removeDuplicates(edges2);
-    t.checkExpect(edges2, new ArrayList<Edge>(Arrays.asList(this.e3, this.e4, this.e1)));
-  }
-
   // tests for on key
   void testOnKeyEvent(Tester t) {
     this.initData();
@@ -1177,8 +6045,8 @@ class ExamplesMazes {
     this.maze.onKeyEvent("left");
     t.checkExpect(this.maze.makeScene(), test);
     this.maze.onKeyEvent("down");
-    t.checkExpect(this.maze.vertices.get(1).col, Color.blue);
-    t.checkExpect(this.maze.vertices.get(0).col, Color.red);
+    t.checkExpect(this.maze.paint.colorOf(1), Color.blue);
+    t.checkExpect(this.maze.paint.colorOf(0), Color.red);
     this.initData();
     this.maze.dfs = false;
     this.maze.bfs = true;
@@ -1186,34 +6054,416 @@ class ExamplesMazes {
     this.maze.manualMode = false;
     this.maze.found = false;
     this.maze.solution = this.maze.bfs();
-    this.maze.vertices.get(0).col = Color.red;
-    this.maze.vertices.get(3).col = Color.white;
+    this.maze.paint.paint(0, Color.red);
+    this.maze.paint.paint(3, Color.white);
     this.maze.onKeyEvent("r");
-    t.checkExpect(this.maze.vertices.get(0).col, Color.green);
-    t.checkExpect(this.maze.vertices.get(3).col, Color.orange);
-  }
-
-  // tests for find edge in span
-  void testFindEdge(Tester t) {
-    this.initData();
-    t.checkExpect(this.maze.findEdgeinSpan(this.v1), 0);
-    t.checkExpect(this.maze.findEdgeinSpan(this.v3), 2);
-    t.checkExpect(this.maze.findEdgeinSpan(this.v4), -1);
+    t.checkExpect(this.maze.paint.colorOf(0), Color.green);
+    t.checkExpect(this.maze.paint.colorOf(3), Color.orange);
   }
 
   // tests for build list of shortest
   void testBuildShortest(Tester t) {
     this.initData();
     this.maze.buildListofShortest();
-    t.checkExpect(this.maze.path, new ArrayList<Edge>(Arrays.asList(this.e2, this.e2)));
+    // building the path again replaces it rather than adding to it
+    t.checkExpect(this.maze.path, new ArrayList<Edge>(Arrays.asList(this.e5)));
+    // the path on a bigger maze is a chain of tree edges from the first vertex
+    // to a neighbour of the last one
+    ArrayList<Edge> path = this.maze2.path;
+    t.checkExpect(path.get(0).from, this.maze2.vertices.get(0));
+    for (int i = 1; i < path.size(); i++) {
+      t.checkExpect(path.get(i).from, path.get(i - 1).to);
+    }
+    int last = path.get(path.size() - 1).to.label;
+    t.checkExpect(this.maze2.passages.neighbor(last, this.maze2.passages.side(last, 399)), 399);
   }
 
   // tests for gen out edge
   void testGenOutEdge(Tester t) {
     this.initData();
-    for (int i = 0; i < this.maze.span.size(); i++) {
-      t.checkExpect(this.maze.span.get(i).from.outEdges, this.span.get(i).from.outEdges);
-      t.checkExpect(this.maze.span.get(i).to.outEdges, this.span.get(i).to.outEdges);
+    // 0 opens to 1 below it, 1 opens to 3 on its right, 2 opens to 3 below it
+    t.checkExpect(this.maze.passages.cells, new byte[] { 7, 9, 7, 10 });
+    // walls only come down on screen as the maze is animated
+    t.checkExpect(this.maze.walls.cells, new byte[] { 15, 15, 15, 15 });
+  }
+
+  // determines if the given walls make a perfect maze: every cell can reach
+  // every other one, the outer walls stand, and there are no loops
+  boolean isPerfect(WallGrid w) {
+    Grid g = w.grid;
+    UnionFind uf = new UnionFind(g.size());
+    boolean noLoops = true;
+    boolean closed = true;
+    for (int cell = 0; cell < g.size(); cell++) {
+      int x = g.xOf(cell);
+      int y = g.yOf(cell);
+      closed = closed && (x > 0 || w.hasWall(cell, WallGrid.LEFT))
+          && (x < g.width - 1 || w.hasWall(cell, WallGrid.RIGHT))
+          && (y > 0 || w.hasWall(cell, WallGrid.TOP))
+          && (y < g.height - 1 || w.hasWall(cell, WallGrid.BOTTOM));
+      if (x < g.width - 1 && !w.hasWall(cell, WallGrid.RIGHT)) {
+        noLoops = noLoops && !w.hasWall(g.index(x + 1, y), WallGrid.LEFT)
+            && uf.union(cell, g.index(x + 1, y));
+      }
+      if (y < g.height - 1 && !w.hasWall(cell, WallGrid.BOTTOM)) {
+        noLoops = noLoops && !w.hasWall(g.index(x, y + 1), WallGrid.TOP)
+            && uf.union(cell, g.index(x, y + 1));
+      }
+    }
+    return noLoops && closed && uf.sets == 1;
+  }
+
+  // tests for generating with eller's algorithm
+  void testEller(Tester t) {
+    this.initData();
+    WallGrid w = new WallGrid(new Grid(9, 7));
+    new EllerGenerator(9, 7, new Random(3)).generate(new WallGridSink(w));
+    t.checkExpect(this.isPerfect(w), true);
+    WallGrid single = new WallGrid(new Grid(5, 1));
+    new EllerGenerator(5, 1, new Random(3)).generate(new WallGridSink(single));
+    t.checkExpect(single.cells, new byte[] { 13, 12, 12, 12, 14 });
+    WallGrid column = new WallGrid(new Grid(1, 4));
+    new EllerGenerator(1, 4, new Random(3)).generate(new WallGridSink(column));
+    t.checkExpect(column.cells, new byte[] { 7, 3, 3, 11 });
+    t.checkExpect(this.isPerfect(this.maze2.passages), true);
+  }
+
+  // tests for the rows handed over by eller's algorithm
+  void testEllerRows(Tester t) {
+    this.initData();
+    ArrayList<String> rows = new ArrayList<String>();
+    IRowSink recorder = new IRowSink() {
+      public void acceptRow(int y, byte[] walls) {
+        rows.add(y + ":" + walls.length);
+      }
+    };
+    new EllerGenerator(6, 3, new Random(8)).generate(recorder);
+    t.checkExpect(rows, new ArrayList<String>(Arrays.asList("0:6", "1:6", "2:6")));
+  }
+
+  // tests for writing rows to a channel
+  void testChannelRowSink(Tester t) {
+    this.initData();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ChannelRowSink sink = new ChannelRowSink(Channels.newChannel(bytes), 3);
+    sink.acceptRow(0, new byte[] { 13, 12, 14 });
+    sink.acceptRow(1, new byte[] { 3, 0, 15 });
+    t.checkExpect(bytes.toByteArray(), new byte[] { (byte) 0xCD, 14, 3, 15 });
+    // the same rows written from eller's algorithm take half a byte a cell
+    ByteArrayOutputStream maze = new ByteArrayOutputStream();
+    new EllerGenerator(5, 4, new Random(1))
+        .generate(new ChannelRowSink(Channels.newChannel(maze), 5));
+    t.checkExpect(maze.size(), 12);
+  }
+
+  // builds a 2x2 maze whose only wall inside is between the two cells on the right
+  WallGrid twoByTwo() {
+    WallGrid walls = new WallGrid(new Grid(2, 2));
+    walls.open(0, 2);
+    walls.open(0, 1);
+    walls.open(1, 3);
+    return walls;
+  }
+
+  // tests for writing rows as text
+  void testTextRowSink(Tester t) {
+    ByteArrayOutputStream ascii = new ByteArrayOutputStream();
+    this.twoByTwo().sendRows(new TextRowSink(Channels.newChannel(ascii), 2, 2, false));
+    t.checkExpect(ascii.toString(StandardCharsets.UTF_8),
+        "+-+-+\n|   |\n+ +-+\n|   |\n+-+-+\n");
+    ByteArrayOutputStream box = new ByteArrayOutputStream();
+    this.twoByTwo().sendRows(new TextRowSink(Channels.newChannel(box), 2, 2, true));
+    t.checkExpect(box.toString(StandardCharsets.UTF_8),
+        "\u250c\u2500\u2500\u2500\u2510\n\u2502   \u2502\n"
+            + "\u2502 \u2576\u2500\u2524\n\u2502   \u2502\n"
+            + "\u2514\u2500\u2500\u2500\u2518\n");
+  }
+
+  // tests for writing rows as a PNG image
+  void testPngRowSink(Tester t) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    this.twoByTwo().sendRows(new PngRowSink(Channels.newChannel(bytes), 2, 2, 4));
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    int black = Color.black.getRGB();
+    int white = Color.white.getRGB();
+    t.checkExpect(image.getWidth(), 9);
+    t.checkExpect(image.getHeight(), 9);
+    t.checkExpect(image.getRGB(0, 0), black);
+    t.checkExpect(image.getRGB(2, 0), black);
+    t.checkExpect(image.getRGB(0, 2), black);
+    t.checkExpect(image.getRGB(2, 2), white);
+    // the walls that were knocked down, and the corner between them
+    t.checkExpect(image.getRGB(4, 2), white);
+    t.checkExpect(image.getRGB(2, 4), white);
+    t.checkExpect(image.getRGB(4, 4), black);
+    // the wall that is left
+    t.checkExpect(image.getRGB(6, 4), black);
+    t.checkExpect(image.getRGB(6, 6), white);
+    t.checkExpect(image.getRGB(8, 6), black);
+    t.checkExpect(image.getRGB(6, 8), black);
+    // a long maze is split over many chunks
+    ByteArrayOutputStream big = new ByteArrayOutputStream();
+    new EllerGenerator(300, 400, new Random(5))
+        .generate(new PngRowSink(Channels.newChannel(big), 300, 400, 3));
+    BufferedImage read = ImageIO.read(new ByteArrayInputStream(big.toByteArray()));
+    t.checkExpect(read.getHeight(), 1201);
+    t.checkExpect(read.getRGB(900, 1200), black);
+    t.checkExpect(read.getRGB(1, 1), white);
+    // cells too small to have room between their walls are turned down
+    String message = "";
+    try {
+      new PngRowSink(Channels.newChannel(bytes), 20, 20, 1);
+    }
+    catch (IllegalArgumentException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, "cells must be at least 2 pixels across, not 1");
+    message = "";
+    try {
+      MazeExport.sink("png", Channels.newChannel(bytes), 20, 20, 0);
+    }
+    catch (IllegalArgumentException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, "cells must be at least 2 pixels across, not 0");
+  }
+
+  // tests that a maze exports the same whether it is streamed from a
+  // generator, a maze file or a grid in memory
+  void testSendRows(Tester t) throws IOException {
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    new EllerGenerator(9, 6, new SeedTree(3))
+        .generate(new TextRowSink(Channels.newChannel(streamed), 9, 6, true));
+    WallGrid walls = new WallGrid(new Grid(9, 6));
+    new EllerGenerator(9, 6, new SeedTree(3)).generate(new WallGridSink(walls));
+    ByteArrayOutputStream fromGrid = new ByteArrayOutputStream();
+    walls.sendRows(new TextRowSink(Channels.newChannel(fromGrid), 9, 6, true));
+    t.checkExpect(fromGrid.toString(StandardCharsets.UTF_8),
+        streamed.toString(StandardCharsets.UTF_8));
+    Path path = Files.createTempFile("maze", ".bin");
+    ByteArrayOutputStream fromFile = new ByteArrayOutputStream();
+    MazeFile.save(path, walls, 3, MazeFile.ELLER)
+        .sendRows(new TextRowSink(Channels.newChannel(fromFile), 9, 6, true));
+    t.checkExpect(fromFile.toString(StandardCharsets.UTF_8),
+        streamed.toString(StandardCharsets.UTF_8));
+    t.checkExpect(streamed.toString(StandardCharsets.UTF_8).length(), 13 * 20);
+    Files.delete(path);
+  }
+
+  // tests for generating in stripes
+  void testStripedKruskal(Tester t) {
+    this.initData();
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    WallGrid a = new StripedKruskal(new Grid(30, 41), 7, 5).generate(one);
+    WallGrid b = new StripedKruskal(new Grid(30, 41), 7, 5).generate(four);
+    t.checkExpect(this.isPerfect(a), true);
+    t.checkExpect(a.cells, b.cells);
+    t.checkExpect(this.isPerfect(new StripedKruskal(new Grid(6, 4), 2, 1).generate(four)), true);
+    // more stripes than rows leaves one row to a stripe
+    StripedKruskal thin = new StripedKruskal(new Grid(3, 2), 2, 9);
+    t.checkExpect(thin.stripes, 2);
+    t.checkExpect(this.isPerfect(thin.generate(four)), true);
+    one.shutdown();
+    four.shutdown();
+  }
+
+  // tests that the weights of a striped maze do not depend on its stripes
+  void testStripedKruskalSeams(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    StripedKruskal two = new StripedKruskal(new Grid(5, 6), 11, 2);
+    StripedKruskal six = new StripedKruskal(new Grid(5, 6), 11, 6);
+    two.generate(pool);
+    six.generate(pool);
+    // the edges below row 2 cross a seam with either number of stripes
+    t.checkExpect(Arrays.copyOfRange(two.seamWeights, 0, 5),
+        Arrays.copyOfRange(six.seamWeights, 10, 15));
+    t.checkExpect(new StripedKruskal(new Grid(5, 6), 11, 6).generate(pool).cells,
+        six.walls.cells);
+    pool.shutdown();
+  }
+
+  // tests for the rows that start each stripe
+  void testFirstRow(Tester t) {
+    this.initData();
+    StripedKruskal s = new StripedKruskal(new Grid(4, 10), 0, 3);
+    t.checkExpect(s.firstRow(0), 0);
+    t.checkExpect(s.firstRow(1), 3);
+    t.checkExpect(s.firstRow(2), 6);
+    t.checkExpect(s.firstRow(3), 10);
+  }
+
+  // tests for saving and loading maze files
+  void testMazeFile(Tester t) throws IOException {
+    this.initData();
+    Path path = Files.createTempFile("maze", ".bin");
+    MazeFile saved = MazeFile.save(path, this.maze2.passages, 42, MazeFile.KRUSKAL);
+    MazeFile loaded = MazeFile.open(path);
+    t.checkExpect(Files.size(path), 32L + 20 * 10);
+    t.checkExpect(loaded.width, 20);
+    t.checkExpect(loaded.height, 20);
+    t.checkExpect(loaded.seed, 42L);
+    t.checkExpect(loaded.algorithm, MazeFile.KRUSKAL);
+    t.checkExpect(loaded.walls(13, 7), this.maze2.passages.walls(267));
+    t.checkExpect(loaded.toWallGrid().cells, this.maze2.passages.cells);
+    // changes made through one mapping show up through the other
+    saved.setWalls(3, 19, WallGrid.ALL);
+    t.checkExpect(loaded.walls(3, 19), WallGrid.ALL);
+    Files.delete(path);
+  }
+
+  // tests for streaming a generator into a maze file
+  void testMazeFileRows(Tester t) throws IOException {
+    this.initData();
+    Path path = Files.createTempFile("maze", ".bin");
+    MazeFile file = MazeFile.create(path, 7, 5, 3, MazeFile.ELLER);
+    t.checkExpect(file.walls(6, 4), WallGrid.ALL);
+    new EllerGenerator(7, 5, new Random(3)).generate(file);
+    file.force();
+    WallGrid expected = new WallGrid(new Grid(7, 5));
+    new EllerGenerator(7, 5, new Random(3)).generate(new WallGridSink(expected));
+    t.checkExpect(MazeFile.open(path).toWallGrid().cells, expected.cells);
+    Files.delete(path);
+  }
+
+  // tests for opening files that are not mazes
+  void testMazeFileErrors(Tester t) throws IOException {
+    this.initData();
+    Path path = Files.createTempFile("maze", ".bin");
+    Files.write(path, new byte[40]);
+    String message = "";
+    try {
+      MazeFile.open(path);
+    }
+    catch (IOException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, path + " is not a maze file");
+    Files.write(path, new byte[3]);
+    message = "";
+    try {
+      MazeFile.open(path);
+    }
+    catch (IOException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, path + " is not a maze file");
+    MazeFile.create(path, 4, 4, 0, MazeFile.KRUSKAL);
+    Files.write(path, Arrays.copyOf(Files.readAllBytes(path), 36));
+    try {
+      MazeFile.open(path);
+    }
+    catch (IOException e) {
+      message = e.getMessage();
+    }
+    t.checkExpect(message, path + " is truncated");
+    Files.delete(path);
+  }
+
+  // tests for working out the structure of a maze
+  void testMazeAnalyzer(Tester t) {
+    // a junction with one corridor of two steps either side and one of one
+    // step below it, and the last cell at the end of the right corridor
+    WallGrid tee = new WallGrid(new Grid(3, 2));
+    Grid g = tee.grid;
+    tee.open(g.index(0, 0), g.index(1, 0));
+    tee.open(g.index(1, 0), g.index(2, 0));
+    tee.open(g.index(1, 0), g.index(1, 1));
+    tee.open(g.index(0, 0), g.index(0, 1));
+    tee.open(g.index(2, 0), g.index(2, 1));
+    MazeStats stats = new MazeAnalyzer(tee).analyze();
+    t.checkExpect(stats.degrees, new long[] { 0, 3, 2, 1, 0 });
+    t.checkExpect(stats.deadEnds(), 3L);
+    t.checkExpect(stats.junctions(), 1L);
+    t.checkExpect(stats.longestCorridor, 2);
+    t.checkExpect(stats.solutionLength, 3);
+    t.checkExpect(stats.branches, new long[] { 2, 2, 0 });
+    t.checkExpect(stats.diameter, 4);
+    // a single cell is its own solution
+    MazeStats one = new MazeAnalyzer(new WallGrid(new Grid(1, 1))).analyze();
+    t.checkExpect(one.degrees, new long[] { 1, 0, 0, 0, 0 });
+    t.checkExpect(one.solutionLength, 0);
+    t.checkExpect(one.branches, new long[] { 1, 0, 0 });
+    t.checkExpect(one.diameter, 0);
+    // without a way through there is no solution
+    WallGrid apart = new WallGrid(new Grid(2, 1));
+    t.checkExpect(new MazeAnalyzer(apart).analyze().solutionLength, -1);
+    t.checkExpect(new MazeAnalyzer(apart).analyze().branches, new long[] { 0, 0, 0 });
+  }
+
+  // tests for working out the structure of a generated maze
+  void testMazeAnalyzerGenerated(Tester t) {
+    this.initData();
+    WallGrid passages = this.maze2.passages;
+    MazeStats stats = new MazeAnalyzer(passages).analyze();
+    PathIndex index = new PathIndex(passages, 0);
+    index.build();
+    long[] degrees = new long[5];
+    int diameter = 0;
+    for (int from = 0; from < 400; from++) {
+      degrees[4 - Integer.bitCount(passages.walls(from))]++;
+      for (int to = from + 1; to < 400; to++) {
+        diameter = Math.max(diameter, index.distance(from, to));
+      }
     }
+    t.checkExpect(stats.degrees, degrees);
+    t.checkExpect(stats.diameter, diameter);
+    t.checkExpect(stats.solutionLength, index.distance(0, 399));
+    t.checkExpect(stats.solutionLength, this.maze2.path.size() + 1);
+    long solutionCells = stats.branches[0] + stats.branches[1] + stats.branches[2];
+    t.checkExpect(solutionCells, (long) stats.solutionLength + 1);
+    t.checkExpect(this.maze2.analyze(), stats);
+    // counting the rows on any number of threads finds the same
+    WallGrid tall = new KruskalGenerator(new Grid(40, 500), new SplittableRandom(5)).generate();
+    MazeStats alone = new MazeAnalyzer(tall).analyze();
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    t.checkExpect(new MazeAnalyzer(tall).analyze(one), alone);
+    t.checkExpect(new MazeAnalyzer(tall).analyze(four), alone);
+    one.shutdown();
+    four.shutdown();
+    t.checkExpect(alone.degrees[0], 0L);
+    t.checkExpect(alone.degrees[1] + 2 * alone.degrees[2] + 3 * alone.degrees[3]
+        + 4 * alone.degrees[4], 2L * (40 * 500 - 1));
+    t.checkExpect(alone.longestCorridor > 0, true);
+    t.checkExpect(alone.longestCorridor <= alone.diameter, true);
+    t.checkExpect(alone.solutionLength <= alone.diameter, true);
+  }
+
+  // tests for surveying many mazes
+  void testMazeSurvey(Tester t) {
+    MazeSurvey survey = new MazeSurvey(new Grid(12, 9), 40, 30, MazeFile.PRIM);
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool three = new ForkJoinPool(3);
+    MazeSummary summary = survey.survey(one);
+    MazeSummary shared = survey.survey(three);
+    one.shutdown();
+    three.shutdown();
+    t.checkExpect(summary.diameter.getCount(), 30L);
+    t.checkExpect(shared.report(), summary.report());
+    t.checkExpect(summary.degrees[0] + summary.degrees[1] + summary.degrees[2]
+        + summary.degrees[3] + summary.degrees[4], 30L * 108);
+    // every seed is the same maze the batch generator saves for it
+    MazeStats first = survey.analyzeOne(40);
+    t.checkExpect(first, new MazeAnalyzer(AMazeGenerator.make(MazeFile.PRIM,
+        new Grid(12, 9), new SeedTree(40).random()).generate()).analyze());
+    t.checkExpect(summary.diameter.getMax() >= first.diameter, true);
+    t.checkExpect(summary.solutionLength.getMin() <= first.solutionLength, true);
+    String report = summary.report();
+    t.checkExpect(report.startsWith(String.format("30 mazes%n")), true);
+    t.checkExpect(report.contains("dead ends"), true);
+    t.checkExpect(report.contains("diameter"), true);
+    t.checkExpect(report.contains("cells by passages out: 0: 0"), true);
+    // striped mazes are analysed as they are built, a single door across each seam
+    MazeSurvey striped = new MazeSurvey(new Grid(12, 40), 0, 4, MazeFile.STRIPED, 4);
+    ForkJoinPool two = new ForkJoinPool(2);
+    MazeSummary bands = striped.survey(two);
+    two.shutdown();
+    t.checkExpect(bands.diameter.getCount(), 4L);
+    t.checkExpect(striped.analyzeOne(2), new MazeAnalyzer(new StripedKruskal(new Grid(12, 40),
+        2, 4).generate(new ForkJoinPool(1))).analyze());
+    // no mazes at all
+    t.checkExpect(new MazeSurvey(new Grid(3, 3), 0, 0, MazeFile.KRUSKAL)
+        .survey(ForkJoinPool.commonPool()).diameter.getCount(), 0L);
   }
-}
\ No newline at end of file
+}
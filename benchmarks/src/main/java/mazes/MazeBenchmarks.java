@@ -0,0 +1,169 @@
+package mazes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javalib.impworld.WorldScene;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+
+//benchmarks every phase of building and solving a maze, on square grids from
+//20x20 up to 2048x2048. Each phase runs again on a maze that has already been
+//built, refilling the vertices, edges and buffers it filled in before in place,
+//just as regenerating a maze does, so nothing needs clearing between calls.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g", "-Djava.awt.headless=true" })
+public class MazeBenchmarks {
+
+  // runs the benchmarks with the given JMH options, always with the allocation
+  // profiler turned on
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class).build()).run();
+  }
+
+  //a maze that has been through every construction phase
+  @State(Scope.Thread)
+  public static class Built {
+    @Param({ "20", "128", "512", "2048" })
+    public int size;
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void build() {
+      this.maze = new Maze(this.size, this.size, false, false, false);
+    }
+  }
+
+  //a built maze being shown on screen
+  public static class Shown extends Built {
+    @Setup(Level.Trial)
+    public void show() {
+      this.maze.bfs = true;
+      this.maze.solution = this.maze.bfs();
+    }
+  }
+
+  //a built maze about to be animated from the start; a whole animation takes
+  //hundreds of frames, long enough to start it over outside the measured time
+  public static class Animating extends Shown {
+    @Setup(Level.Invocation)
+    public void rewind() {
+      this.maze.walls.reset();
+      this.maze.renderer.markAll();
+      this.maze.currIdxOfE = 0;
+      this.maze.solveMaze = false;
+      this.maze.found = false;
+      this.maze.solution = this.maze.bfs();
+      this.maze.solutionIdx = 0;
+      this.maze.animation.startPhase();
+    }
+  }
+
+  //a headless generator for every algorithm the menu offers
+  @State(Scope.Thread)
+  public static class Generating {
+    @Param({ "20", "128", "512", "2048" })
+    public int size;
+    @Param({ "kruskal", "prim", "backtracker" })
+    public String algorithm;
+    IMazeGenerator generator;
+
+    @Setup(Level.Trial)
+    public void build() {
+      this.generator = AMazeGenerator.make(Arrays.asList(MazeFile.ALGORITHMS).indexOf(this.algorithm),
+          new Grid(this.size, this.size), new SplittableRandom(1));
+    }
+  }
+
+  @Benchmark
+  public WallGrid generate(Generating state) {
+    return state.generator.generate();
+  }
+
+  @Benchmark
+  public Maze genVertices(Built state) {
+    state.maze.genVertices();
+    return state.maze;
+  }
+
+  @Benchmark
+  public Maze genEdges(Built state) {
+    state.maze.genEdges();
+    return state.maze;
+  }
+
+  @Benchmark
+  public Maze buildSpan(Built state) {
+    state.maze.buildSpan();
+    return state.maze;
+  }
+
+  @Benchmark
+  public Maze genOutEdge(Built state) {
+    state.maze.genOutEdge();
+    return state.maze;
+  }
+
+  @Benchmark
+  public Maze buildListofShortest(Built state) {
+    state.maze.buildListofShortest();
+    return state.maze;
+  }
+
+  @Benchmark
+  public Maze regenerate(Built state) {
+    state.maze.regenerate();
+    return state.maze;
+  }
+
+  @Benchmark
+  public ArrayList<Edge> bfs(Built state) {
+    state.maze.found = false;
+    return state.maze.bfs();
+  }
+
+  @Benchmark
+  public ArrayList<Edge> dfs(Built state) {
+    state.maze.found = false;
+    return state.maze.dfs();
+  }
+
+  @Benchmark
+  public MazeStats analyze(Built state) {
+    return new MazeAnalyzer(state.maze.passages).analyze();
+  }
+
+  @Benchmark
+  public WorldScene makeScene(Shown state) {
+    return state.maze.makeScene();
+  }
+
+  @Benchmark
+  public Maze animate(Animating state) {
+    while (!state.maze.isAnimationDone()) {
+      state.maze.onTick();
+    }
+    return state.maze;
+  }
+}